@@ -141,6 +141,10 @@ public class Activator extends PluginBase {
 		getInstance().logException(msg, t);
 	}
 	
+	public static void logInfo(String msg) {
+		getInstance().getLog().log(new Status(IStatus.INFO, PLUGIN_ID, msg));
+	}
+	
 	public void logException(String msg, Throwable t) {
 		if (msg == null) {
 			if (t == null || t.getMessage() == null)
@@ -0,0 +1,232 @@
+package org.rascalmpl.eclipse.builder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.rascalmpl.eclipse.IRascalResources;
+import org.rascalmpl.eclipse.util.RascalEclipseManifest;
+
+/**
+ * The import and extend relation between the modules of a single project, as far as it can be
+ * seen from the module headers. It is used to order compilation of a set of changed modules: modules
+ * which (transitively) import each other are grouped into one {@link Unit}, and a unit is only
+ * compiled after the units it depends on.
+ *
+ * Imports are found by a lexical scan instead of a parse. The compiler still resolves the real
+ * imports, so a wrong guess here costs parallelism or duplicate work, not the outcome of compilation.
+ */
+public class ImportGraph {
+    private static final Pattern IMPORT = Pattern.compile("^\\s*(?:import|extend)\\s+([\\\\A-Za-z0-9_:]+)\\s*;", Pattern.MULTILINE);
+
+    private final IProject project;
+    private final List<String> sourceRoots;
+    private final Map<String, Set<String>> imports = new HashMap<>();
+
+    public ImportGraph(IProject project) {
+        this.project = project;
+        this.sourceRoots = new RascalEclipseManifest().getSourceRoots(project);
+    }
+
+    /**
+     * A strongly connected component of changed modules, with the indexes of the units it waits for.
+     */
+    public static class Unit {
+        private final List<String> modules;
+        private final Set<Integer> dependencies = new HashSet<>();
+
+        private Unit(List<String> modules) {
+            this.modules = modules;
+        }
+
+        public List<String> getModules() {
+            return modules;
+        }
+
+        public Set<Integer> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public String toString() {
+            return modules.toString();
+        }
+    }
+
+    /**
+     * Groups the changed modules into units. Dependencies between changed modules are
+     * also found when they run via modules that did not change.
+     */
+    public List<Unit> units(Set<String> changed) {
+        Map<String, Set<String>> reaches = new LinkedHashMap<>();
+
+        for (String module : changed) {
+            Set<String> reached = new HashSet<>(reachable(module));
+            reached.retainAll(changed);
+            reaches.put(module, reached);
+        }
+
+        List<Unit> units = new ArrayList<>();
+        Map<String, Integer> unitOf = new HashMap<>();
+
+        for (String module : reaches.keySet()) {
+            if (unitOf.containsKey(module)) {
+                continue;
+            }
+
+            List<String> component = new ArrayList<>();
+            component.add(module);
+
+            for (String other : reaches.get(module)) {
+                if (!other.equals(module) && !unitOf.containsKey(other) && reaches.get(other).contains(module)) {
+                    component.add(other);
+                }
+            }
+
+            for (String member : component) {
+                unitOf.put(member, units.size());
+            }
+
+            units.add(new Unit(component));
+        }
+
+        for (int i = 0; i < units.size(); i++) {
+            Unit unit = units.get(i);
+
+            for (String module : unit.modules) {
+                for (String dependency : reaches.get(module)) {
+                    int other = unitOf.get(dependency);
+
+                    if (other != i) {
+                        unit.dependencies.add(other);
+                    }
+                }
+            }
+        }
+
+        return units;
+    }
+
+    /**
+     * The unchanged modules of the project which the compiler will find out of date when it compiles
+     * the changed modules: those imported (transitively) by a changed module which themselves import
+     * (transitively) a changed module. When two changed modules share such an import, compiling them 
+     * side by side would make both kernels recompile it and write its binaries at the same time,
+     * so these modules are better compiled as units of their own, before the modules that import them.
+     */
+    public Set<String> staleImports(Set<String> changed) {
+        Set<String> result = new LinkedHashSet<>();
+
+        for (String module : changed) {
+            for (String imported : reachable(module)) {
+                if (changed.contains(imported) || result.contains(imported) || getFile(imported) == null) {
+                    continue;
+                }
+
+                if (!Collections.disjoint(reachable(imported), changed)) {
+                    result.add(imported);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private Set<String> reachable(String module) {
+        Set<String> seen = new LinkedHashSet<>();
+        Deque<String> todo = new ArrayDeque<>();
+        todo.push(module);
+
+        while (!todo.isEmpty()) {
+            String current = todo.pop();
+
+            for (String imported : importsOf(current)) {
+                if (seen.add(imported)) {
+                    todo.push(imported);
+                }
+            }
+        }
+
+        return seen;
+    }
+
+    private Set<String> importsOf(String module) {
+        Set<String> result = imports.get(module);
+
+        if (result == null) {
+            result = scan(module);
+            imports.put(module, result);
+        }
+
+        return result;
+    }
+
+    private Set<String> scan(String module) {
+        IFile file = getFile(module);
+
+        if (file == null) {
+            // library modules do not import modules of this project
+            return Collections.emptySet();
+        }
+
+        Set<String> result = new HashSet<>();
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(file.getContents(), file.getCharset()))) {
+            StringBuilder b = new StringBuilder();
+            char[] buf = new char[4096];
+            int read;
+
+            while ((read = in.read(buf)) != -1) {
+                b.append(buf, 0, read);
+            }
+
+            Matcher m = IMPORT.matcher(b);
+            while (m.find()) {
+                result.add(m.group(1).replaceAll("\\\\", ""));
+            }
+        }
+        catch (CoreException | IOException e) {
+            // then we do not know its imports, and it will simply be compiled without waiting
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the file of a module in the source folders of this project, or null if it is not one of its modules
+     */
+    public IFile getFile(String module) {
+        String path = module.replaceAll("::", "/") + "." + IRascalResources.RASCAL_EXT;
+
+        for (String root : sourceRoots) {
+            IFolder folder = project.getFolder(root);
+
+            if (folder != null && folder.exists()) {
+                IFile file = folder.getFile(path);
+
+                if (file.exists()) {
+                    return file;
+                }
+            }
+        }
+
+        return null;
+    }
+}
@@ -3,9 +3,22 @@ package org.rascalmpl.eclipse.builder;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -18,11 +31,15 @@ import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.IRascalResources;
 import org.rascalmpl.eclipse.editor.IDEServicesModelProvider;
 import org.rascalmpl.eclipse.editor.MessagesToMarkers;
+import org.rascalmpl.eclipse.editor.ReconcilingMarkerCreator;
+import org.rascalmpl.eclipse.editor.SummaryStore;
 import org.rascalmpl.eclipse.preferences.RascalPreferences;
+import org.rascalmpl.eclipse.util.PathConfigCache;
 import org.rascalmpl.eclipse.util.ProjectConfig;
 import org.rascalmpl.eclipse.util.RascalEclipseManifest;
 import org.rascalmpl.eclipse.util.ResourcesToModules;
@@ -33,13 +50,14 @@ import org.rascalmpl.library.lang.rascal.boot.IKernel;
 import org.rascalmpl.library.util.PathConfig;
 import org.rascalmpl.uri.ProjectURIResolver;
 import org.rascalmpl.value.IConstructor;
+import org.rascalmpl.value.IListWriter;
 import org.rascalmpl.value.ISet;
 import org.rascalmpl.value.ISourceLocation;
 import org.rascalmpl.value.IValue;
 import org.rascalmpl.value.IValueFactory;
 import org.rascalmpl.values.ValueFactoryFactory;
 
-import io.usethesource.impulse.builder.MarkerCreator;
+import io.usethesource.impulse.parser.IMessageHandler;
 import io.usethesource.impulse.runtime.RuntimePlugin;
 
 /** 
@@ -49,10 +67,15 @@ import io.usethesource.impulse.runtime.RuntimePlugin;
 public class IncrementalRascalBuilder extends IncrementalProjectBuilder {
     // A kernel is 100Mb, so we can't have one for every project; that's why it's static:
     private static IKernel kernel;
+    private static final long KERNEL_MEMORY = 100L * 1024 * 1024;
+    private static final int MAX_KERNELS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // kernels for compiling independent modules in parallel; the first is always the shared kernel above
+    private static final List<IKernel> kernels = new ArrayList<>();
+    private static final BlockingQueue<IKernel> idleKernels = new LinkedBlockingQueue<>();
 	private static PrintStream out;
     private static PrintStream err;
     private static IValueFactory vf;
-    private static List<String> binaryExtension = Arrays.asList("imps","rvm", "rvmx", "tc","sig","sigs");
+    private static List<String> binaryExtension = Arrays.asList("imps","rvm", "rvmx", "tc","sig","sigs", SummaryStore.SUMMARY_EXT);
     
     private ISourceLocation projectLoc;
     private PathConfig pathConfig;
@@ -63,17 +86,50 @@ public class IncrementalRascalBuilder extends IncrementalProjectBuilder {
                 out = new PrintStream(RuntimePlugin.getInstance().getConsoleStream());
                 err = new PrintStream(RuntimePlugin.getInstance().getConsoleStream());
                 vf = ValueFactoryFactory.getValueFactory();
-                kernel = Java2Rascal.Builder
-                        .bridge(vf, new PathConfig(), IKernel.class)
-                        .stderr(err)
-                        .stdout(out)
-                        .build();
+                kernel = createKernel();
+                kernels.add(kernel);
+                idleKernels.add(kernel);
             } catch (IOException e) {
                 Activator.log("could not initialize incremental Rascal builder", e);
             }
         }
     }
     
+    private static IKernel createKernel() throws IOException {
+        return Java2Rascal.Builder
+                .bridge(vf, new PathConfig(), IKernel.class)
+                .stderr(err)
+                .stdout(out)
+                .build();
+    }
+    
+    /**
+     * Adds kernels to the pool until there are enough for the given parallelism, as
+     * far as the processor count and the free heap (about 100Mb per kernel) allow.
+     */
+    private static synchronized void growKernelPool(int wanted) {
+        Runtime rt = Runtime.getRuntime();
+        
+        while (kernels.size() < Math.min(wanted, MAX_KERNELS)) {
+            long free = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+            
+            if (free < 2 * KERNEL_MEMORY) {
+                // leave room for the compiler to actually do its work
+                return;
+            }
+            
+            try {
+                IKernel extra = createKernel();
+                kernels.add(extra);
+                idleKernels.add(extra);
+            }
+            catch (IOException e) {
+                Activator.log("could not create an additional Rascal kernel", e);
+                return;
+            }
+        }
+    }
+    
     public IncrementalRascalBuilder() {
         
 	}
@@ -116,6 +172,17 @@ public class IncrementalRascalBuilder extends IncrementalProjectBuilder {
         });
     }
 	
+	@Override
+	public ISchedulingRule getRule(int kind, Map<String, String> args) {
+	    if (kind == INCREMENTAL_BUILD || kind == AUTO_BUILD) {
+	        // the worker threads of compileModules do not write through the workspace, so they 
+	        // do not need a rule of their own; the project is enough to keep edits out of the build
+	        return getProject();
+	    }
+	    
+	    return super.getRule(kind, args);
+	}
+	
 	@Override
 	protected IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
 	    switch (kind) {
@@ -200,6 +267,9 @@ public class IncrementalRascalBuilder extends IncrementalProjectBuilder {
             return;
         }
         
+        // first collect the whole delta, such that we can order and share the work
+        Map<String, IFile> changed = new LinkedHashMap<>();
+        
 	    try {
             delta.accept(new IResourceDeltaVisitor() {
                 @Override
@@ -219,37 +289,14 @@ public class IncrementalRascalBuilder extends IncrementalProjectBuilder {
                             return false;
                         }
                         
-                        ISourceLocation loc = ProjectURIResolver.constructProjectURI(delta.getFullPath());
-                        
-                        if (loc == null) {
-                            return false;
-                        }
-                        
-                       
-                        
-                        monitor.beginTask("Compiling " + loc, 100);
-                        try {
-                            IFile file = (IFile) delta.getResource();
-                            file.deleteMarkers(IMarker.PROBLEM, true, 1);
-                            String module = ResourcesToModules.moduleFromFile(file);
+                        IFile file = (IFile) delta.getResource();
+                        String module = ResourcesToModules.moduleFromFile(file);
                             
-                            if (module != null) {
-                                initializeParameters(false);
-                                synchronized (kernel) {
-                                    IConstructor result = kernel.compile(vf.string(module), pathConfig.asConstructor(kernel), kernel.kw_compile());
-                                    markErrors(loc, result);
-                                    IDEServicesModelProvider.getInstance().clearUseDefCache(loc);
-                                }
-                            }
-                            else {
-                                // this module is not on the source search path
-                            }
-                        }
-                        catch (Throwable e) {
-                            Activator.log("Error during compilation of " + loc, e);
+                        if (module != null) {
+                            changed.put(module, file);
                         }
-                        finally {
-                            monitor.done();
+                        else {
+                            // this module is not on the source search path
                         }
                         
                         return false;
@@ -258,11 +305,205 @@ public class IncrementalRascalBuilder extends IncrementalProjectBuilder {
                     return !ProjectConfig.BIN_FOLDER.equals(path.toPortableString());
                 }
             });
+            
+            if (!changed.isEmpty()) {
+                initializeParameters(false);
+                compileModules(changed, monitor);
+            }
         } catch (CoreException e) {
             Activator.log("error during Rascal compilation", e);
         }
     }
     
+    /**
+     * The outcome of compiling one module on one of the kernels.
+     */
+    private static class Compilation {
+        final int unit;
+        final String module;
+        final IConstructor result;
+        final Throwable error;
+        final long nanos;
+        
+        Compilation(int unit, String module, IConstructor result, Throwable error, long nanos) {
+            this.unit = unit;
+            this.module = module;
+            this.result = result;
+            this.error = error;
+            this.nanos = nanos;
+        }
+    }
+    
+    /**
+     * Compiles the changed modules, dependencies first. Groups of modules that do not depend on 
+     * each other are compiled in parallel on a pool of kernels. Only the compiler runs on the
+     * worker threads; markers are updated on the builder thread, in the order compilations finish.
+     * The builder thread holds the project rule, so the workers write the binaries directly into 
+     * the bin folder on disk, which is refreshed once all modules are compiled.
+     */
+    private void compileModules(Map<String, IFile> edited, IProgressMonitor monitor) {
+        ImportGraph graph = new ImportGraph(getProject());
+        Map<String, IFile> changed = new LinkedHashMap<>(edited);
+        
+        // out of date imports are compiled once, before the modules that share them
+        for (String module : graph.staleImports(edited.keySet())) {
+            changed.put(module, graph.getFile(module));
+        }
+        
+        List<ImportGraph.Unit> units = graph.units(changed.keySet());
+        int[] waitingFor = new int[units.size()];
+        Map<Integer, List<Integer>> dependents = new HashMap<>();
+        
+        for (int i = 0; i < units.size(); i++) {
+            waitingFor[i] = units.get(i).getDependencies().size();
+            
+            for (int dep : units.get(i).getDependencies()) {
+                dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        if (units.size() > 1) {
+            growKernelPool(units.size());
+        }
+        
+        int parallelism = kernels.size();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        CompletionService<List<Compilation>> done = new ExecutorCompletionService<>(pool);
+        IConstructor config = localBinConfig().asConstructor(kernel);
+        long start = System.nanoTime();
+        long sequential = 0;
+        int submitted = 0;
+        int finished = 0;
+        
+        monitor.beginTask("Compiling " + changed.size() + " Rascal modules", changed.size());
+        
+        try {
+            for (int i = 0; i < units.size(); i++) {
+                if (waitingFor[i] == 0) {
+                    done.submit(compileUnit(i, units.get(i), config));
+                    submitted++;
+                }
+            }
+            
+            while (finished < submitted) {
+                List<Compilation> results = done.take().get();
+                finished++;
+                
+                for (Compilation c : results) {
+                    sequential += c.nanos;
+                    reportCompilation(changed.get(c.module), c);
+                    monitor.worked(1);
+                }
+                
+                int unit = results.get(0).unit;
+                for (int dependent : dependents.getOrDefault(unit, Collections.emptyList())) {
+                    if (--waitingFor[dependent] == 0 && !monitor.isCanceled()) {
+                        done.submit(compileUnit(dependent, units.get(dependent), config));
+                        submitted++;
+                    }
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            Activator.log("error during Rascal compilation", e.getCause());
+        }
+        finally {
+            pool.shutdown();
+            refreshBinFolder();
+            monitor.done();
+        }
+        
+        out.println("Compiled " + changed.size() + " modules in " + (System.nanoTime() - start) / 1000000 + "ms"
+                + " (" + sequential / 1000000 + "ms of compile time on " + parallelism + " kernels)");
+    }
+    
+    /**
+     * @return the path config of the project, with its bin folder as a location on disk instead of in the workspace 
+     */
+    private PathConfig localBinConfig() {
+        IPath bin = getProject().getFolder(ProjectConfig.BIN_FOLDER).getLocation();
+        
+        if (bin == null) {
+            return pathConfig;
+        }
+        
+        try {
+            ISourceLocation local = vf.sourceLocation("file", "", bin.toString() + "/");
+            IListWriter libs = vf.listWriter();
+            
+            for (IValue lib : pathConfig.getLibs()) {
+                // the binaries of the modules compiled before are read from the same place
+                libs.append(lib.isEqual(pathConfig.getBin()) ? local : lib);
+            }
+            
+            return new PathConfig(pathConfig.getSrcs(), libs.done(), local, pathConfig.getBoot(), 
+                    pathConfig.getCourses(), pathConfig.getJavaCompilerPath(), pathConfig.getClassloaders());
+        }
+        catch (URISyntaxException e) {
+            Activator.log("could not locate the bin folder of " + getProject().getName(), e);
+            return pathConfig;
+        }
+    }
+    
+    private void refreshBinFolder() {
+        try {
+            getProject().getFolder(ProjectConfig.BIN_FOLDER).refreshLocal(IResource.DEPTH_INFINITE, null);
+        }
+        catch (CoreException e) {
+            Activator.log("could not refresh the bin folder of " + getProject().getName(), e);
+        }
+    }
+    
+    private static Callable<List<Compilation>> compileUnit(int index, ImportGraph.Unit unit, IConstructor config) {
+        return () -> {
+            List<Compilation> results = new ArrayList<>(unit.getModules().size());
+            IKernel k = idleKernels.take();
+            
+            try {
+                synchronized (k) {
+                    for (String module : unit.getModules()) {
+                        long start = System.nanoTime();
+                        
+                        try {
+                            IConstructor result = k.compile(vf.string(module), config, k.kw_compile());
+                            results.add(new Compilation(index, module, result, null, System.nanoTime() - start));
+                        }
+                        catch (Throwable e) {
+                            results.add(new Compilation(index, module, null, e, System.nanoTime() - start));
+                        }
+                    }
+                }
+            }
+            finally {
+                idleKernels.add(k);
+            }
+            
+            return results;
+        };
+    }
+    
+    private void reportCompilation(IFile file, Compilation c) {
+        ISourceLocation loc = ProjectURIResolver.constructProjectURI(file.getFullPath());
+        
+        try {
+            if (c.error != null) {
+                file.deleteMarkers(IMarker.PROBLEM, true, 1);
+                Activator.log("Error during compilation of " + loc, c.error);
+            }
+            else {
+                markErrors(loc, c.result);
+            }
+            
+            IDEServicesModelProvider.getInstance().clearUseDefCache(loc);
+        }
+        catch (Throwable e) {
+            Activator.log("Error during compilation of " + loc, e);
+        }
+    }
+    
     private void markErrors(ISourceLocation loc, IConstructor result) throws MalformedURLException, IOException {
         if (result.has("main_module")) {
             result = (IConstructor) result.get("main_module");
@@ -272,18 +513,22 @@ public class IncrementalRascalBuilder extends IncrementalProjectBuilder {
             Activator.log("Unexpected Rascal compiler result: " + result, new IllegalArgumentException());
         }
         
-        new MessagesToMarkers().process(loc, (ISet) result.get("messages"), new MarkerCreator(new ProjectURIResolver().resolveFile(loc)));
+        // only the markers of messages which changed since the previous compilation are touched
+        IMessageHandler markers = new ReconcilingMarkerCreator(new ProjectURIResolver().resolveFile(loc), IMarker.PROBLEM, true);
+        new MessagesToMarkers().process(loc, (ISet) result.get("messages"), markers);
+        markers.endMessages();
     }
 
     private void initializeParameters(boolean force) throws CoreException {
-        if (projectLoc != null && !force) {
-            return;
-        }
-        
         IProject project = getProject();
         
+        if (force) {
+            PathConfigCache.getInstance().invalidate(project);
+        }
+        
         // TODO: these should not be fields
         projectLoc = ProjectURIResolver.constructProjectURI(project.getFullPath());
-        pathConfig = new ProjectConfig(vf).getPathConfig(project);
+        // cheap when cached, and picks up class path changes which do not pass through this builder
+        pathConfig = PathConfigCache.getInstance().getPathConfig(project);
     }
 }
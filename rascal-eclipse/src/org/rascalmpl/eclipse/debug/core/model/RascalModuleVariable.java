@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2015 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.debug.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.IValue;
+import org.eclipse.debug.core.model.IVariable;
+import org.rascalmpl.debug.IRascalFrame;
+import org.rascalmpl.interpreter.result.IRascalResult;
+
+/**
+ *  Groups the variables of an imported module under the name of the module. The variables
+ *  are only looked up when the group is expanded, such that a suspend does not have
+ *  to visit every imported module.
+ */
+public class RascalModuleVariable extends RascalDebugElement implements IVariable {
+	private final RascalStackFrame frame;
+	private final String module;
+	private final ModuleValue value = new ModuleValue();
+
+	protected RascalModuleVariable(RascalStackFrame frame, String module) {
+		super(frame.getRascalDebugTarget());
+		this.frame = frame;
+		this.module = module;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IVariable#getValue()
+	 */
+	public IValue getValue() throws DebugException {
+		return value;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IVariable#getName()
+	 */
+	public String getName() throws DebugException {
+		return module;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IVariable#getReferenceTypeName()
+	 */
+	public String getReferenceTypeName() throws DebugException {
+		return "module";
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+	  if (obj instanceof RascalModuleVariable) {
+	    return module.equals(((RascalModuleVariable) obj).module);
+	  }
+
+	  return false;
+	}
+
+	@Override
+	public int hashCode() {
+	  return module.hashCode();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IVariable#hasValueChanged()
+	 */
+	public boolean hasValueChanged() throws DebugException {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IValueModification#setValue(java.lang.String)
+	 */
+	public void setValue(String expression) throws DebugException {
+
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IValueModification#setValue(org.eclipse.debug.core.model.IValue)
+	 */
+	public void setValue(IValue value) throws DebugException {
+
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IValueModification#supportsValueModification()
+	 */
+	public boolean supportsValueModification() {
+		return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IValueModification#verifyValue(java.lang.String)
+	 */
+	public boolean verifyValue(String expression) throws DebugException {
+	  return false;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IValueModification#verifyValue(org.eclipse.debug.core.model.IValue)
+	 */
+	public boolean verifyValue(IValue value) throws DebugException {
+		return false;
+	}
+
+	private class ModuleValue extends RascalDebugElement implements IValue {
+		private IVariable[] variables = null;
+
+		public ModuleValue() {
+			super(frame.getRascalDebugTarget());
+		}
+
+		public String getReferenceTypeName() throws DebugException {
+			return "module";
+		}
+
+		public String getValueString() throws DebugException {
+			return "";
+		}
+
+		public boolean isAllocated() throws DebugException {
+			return true;
+		}
+
+		public IVariable[] getVariables() throws DebugException {
+			if (variables == null) {
+				variables = loadVariables();
+			}
+
+			return variables.clone();
+		}
+
+		public boolean hasVariables() throws DebugException {
+			// answered without looking into the module, an empty module simply expands to nothing
+			return true;
+		}
+
+		private IVariable[] loadVariables() {
+			IRascalFrame env = getRascalDebugTarget().getEvaluator().getModule(module);
+
+			if (env == null) {
+				return new IVariable[0];
+			}
+
+			List<String> names = new ArrayList<>(env.getFrameVariables());
+			Collections.sort(names);
+			IVariable[] result = new IVariable[names.size()];
+
+			for (int i = 0; i < result.length; i++) {
+				IRascalResult var = env.getFrameVariable(names.get(i));
+				result[i] = new RascalVariable(frame, names.get(i), var.getType(), var.getValue());
+			}
+
+			return result;
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public Object getAdapter(Class adapter) {
+			return frame.getAdapter(adapter);
+		}
+	}
+}
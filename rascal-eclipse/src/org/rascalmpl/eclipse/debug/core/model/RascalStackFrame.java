@@ -74,16 +74,12 @@ public class RascalStackFrame extends RascalDebugElement implements IStackFrame
       ivars.add(new RascalVariable(this, v, var.getType(), var.getValue()));
     }
     
-    for (String s:environment.getImports()) {
-        IRascalFrame module = thread.getRascalDebugTarget().getEvaluator().getModule(s);
-        
-        if (module != null) {
-            Set<String> variables = module.getFrameVariables();
-            for (String v:variables) {
-                IRascalResult w = module.getFrameVariable(v);
-                ivars.add(new RascalVariable(this, s + "::" + v, w.getType(), w.getValue()));
-            }
-        }
+    // the variables of imported modules are only collected when the user expands the module
+    List<String> imports = new ArrayList<>(environment.getImports());
+    Collections.sort(imports);
+    
+    for (String s : imports) {
+        ivars.add(new RascalModuleVariable(this, s));
     }
     
     return ivars.toArray(new IVariable[ivars.size()]);
@@ -15,10 +15,16 @@ package org.rascalmpl.eclipse.debug.core.model;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
 
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.model.IIndexedValue;
 import org.eclipse.debug.core.model.IValue;
 import org.eclipse.debug.core.model.IVariable;
+import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.interpreter.types.RascalTypeFactory;
 import org.rascalmpl.interpreter.utils.LimitedResultWriter;
 import org.rascalmpl.interpreter.utils.LimitedResultWriter.IOLimitReachedException;
@@ -38,14 +44,24 @@ import org.rascalmpl.values.uptr.RascalValueFactory;
 import org.rascalmpl.values.uptr.SymbolAdapter;
 import org.rascalmpl.values.uptr.TreeAdapter;
 
-public class RascalValue extends RascalDebugElement implements IValue {
+/**
+ * Lists, sets and maps are indexed values, such that the variables view shows large collections 
+ * in index ranges and only creates the variables of the ranges which are expanded. The value
+ * string is only printed when it is shown, and then kept.
+ */
+public class RascalValue extends RascalDebugElement implements IIndexedValue {
 	
 	/* do not print more than MAX_VALUE_STRING characters */
 	private final static int MAX_VALUE_STRING = 1000;
+	/* do not print more than MAX_KEY_STRING characters of a map key in the name of its variable */
+	private final static int MAX_KEY_STRING = 100;
 	private final RascalStackFrame target;
 	private final org.rascalmpl.value.IValue value;
 	private final Type decl;
 	private IVariable[] children = null;
+	/* the elements of a set or map, in iteration order, for indexing */
+	private org.rascalmpl.value.IValue[] elements = null;
+	private String valueString = null;
 
 	public RascalValue(RascalStackFrame target, Type decl, org.rascalmpl.value.IValue value) {
 		super(target.getRascalDebugTarget());
@@ -69,6 +85,14 @@ public class RascalValue extends RascalDebugElement implements IValue {
 	 * @see org.eclipse.debug.core.model.IValue#getValueString()
 	 */
 	public String getValueString() throws DebugException {
+		if (valueString == null) {
+			valueString = computeValueString();
+		}
+		
+		return valueString;
+	}
+	
+	private String computeValueString() {
 		if (value == null) {
 			return "<uninitialized>";
 		}
@@ -81,9 +105,13 @@ public class RascalValue extends RascalDebugElement implements IValue {
 	}
 
 	private String getNormalValueString() {
-		Writer w = new LimitedResultWriter(MAX_VALUE_STRING);
+		return print(value, MAX_VALUE_STRING, true);
+	}
+	
+	private static String print(org.rascalmpl.value.IValue value, int limit, boolean indent) {
+		Writer w = new LimitedResultWriter(limit);
 		try {
-			new StandardTextWriter(true, 2).write(value, w);
+			new StandardTextWriter(indent, 2).write(value, w);
 			return w.toString();
 		} catch (IOLimitReachedException e) {
 			return w.toString();
@@ -129,25 +157,121 @@ public class RascalValue extends RascalDebugElement implements IValue {
 		return b.toString();
 	}
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IValue#getVariables()
+	 */
 	public IVariable[] getVariables() throws DebugException {
-	  return null;
+		if (value == null) {
+			return new IVariable[0];
+		}
+		
+		return getVariables(0, getSize());
 	}
 	
 	/* (non-Javadoc)
-	 * @see org.eclipse.debug.core.model.IValue#getVariables()
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getVariable(int)
 	 */
-	public IVariable[] getVariables2() throws DebugException {
-	  if (children != null) {
-	    return children.clone();
-	  }
-	  
-	  TypeFactory tf = TypeFactory.getInstance();
-	  final Type vt = tf.valueType();
-	  
+	public IVariable getVariable(int offset) throws DebugException {
+		return getVariables(offset, 1)[0];
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getVariables(int, int)
+	 */
+	public IVariable[] getVariables(int offset, int length) throws DebugException {
+		if (offset < 0 || length < 0 || offset + length > getSize()) {
+			throw new DebugException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, DebugException.REQUEST_FAILED, 
+					"index range [" + offset + ".." + (offset + length - 1) + "] is out of bounds", null));
+		}
+		
+		if (value instanceof IList) {
+			IList list = (IList) value;
+			Type elemType = decl.isList() ? decl.getElementType() : list.getElementType();
+			IVariable[] result = new IVariable[length];
+			for (int i = 0; i < length; i++) {
+				result[i] = new RascalVariable(target, "[" + (offset + i) + "]", elemType, list.get(offset + i));
+			}
+			return result;
+		}
+		
+		if (value instanceof ISet) {
+			org.rascalmpl.value.IValue[] elems = getElements();
+			Type elemType = decl.isSet() ? decl.getElementType() : TypeFactory.getInstance().valueType();
+			IVariable[] result = new IVariable[length];
+			for (int i = 0; i < length; i++) {
+				result[i] = new RascalVariable(target, "[" + (offset + i) + "]", elemType, elems[offset + i]);
+			}
+			return result;
+		}
+		
+		if (value instanceof IMap) {
+			IMap map = (IMap) value;
+			org.rascalmpl.value.IValue[] keys = getElements();
+			Type valueType = decl.isMap() ? decl.getValueType() : TypeFactory.getInstance().valueType();
+			IVariable[] result = new IVariable[length];
+			for (int i = 0; i < length; i++) {
+				org.rascalmpl.value.IValue key = keys[offset + i];
+				result[i] = new RascalVariable(target, print(key, MAX_KEY_STRING, false), valueType, map.get(key));
+			}
+			return result;
+		}
+		
+		return Arrays.copyOfRange(getChildren(), offset, offset + length);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getSize()
+	 */
+	public int getSize() throws DebugException {
 		if (value == null) {
-		  return null;
+			return 0;
 		}
 		
+		if (value instanceof IList) {
+			return ((IList) value).length();
+		}
+		
+		if (value instanceof ISet) {
+			return ((ISet) value).size();
+		}
+		
+		if (value instanceof IMap) {
+			return ((IMap) value).size();
+		}
+		
+		return getChildren().length;
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.debug.core.model.IIndexedValue#getInitialOffset()
+	 */
+	public int getInitialOffset() {
+		return 0;
+	}
+	
+	private org.rascalmpl.value.IValue[] getElements() {
+		if (elements == null) {
+			int size = value instanceof ISet ? ((ISet) value).size() : ((IMap) value).size();
+			Iterator<org.rascalmpl.value.IValue> it = value instanceof ISet ? ((ISet) value).iterator() : ((IMap) value).iterator();
+			org.rascalmpl.value.IValue[] result = new org.rascalmpl.value.IValue[size];
+			for (int i = 0; i < size && it.hasNext(); i++) {
+				result[i] = it.next();
+			}
+			elements = result;
+		}
+		
+		return elements;
+	}
+	
+	/**
+	 * The children of the values which are not collections: nodes, constructors, parse trees
+	 * and tuples. These have few children, so they are all created at once.
+	 */
+	private IVariable[] getChildren() {
+	  if (children != null) {
+	    return children;
+	  }
+	  
 		return children = value.getType().accept(new ITypeVisitor<IVariable[], RuntimeException>() {
 			@Override
 			public IVariable[] visitReal(Type type) {
@@ -166,23 +290,14 @@ public class RascalValue extends RascalDebugElement implements IValue {
 
 			@Override
 			public IVariable[] visitList(Type type) {
-				IList list = (IList) value;
-				IVariable[] result = new IVariable[list.length()];
-				for (int i = 0; i < list.length(); i++) {
-					result[i] = new RascalVariable(target, "[" + i + "]", decl.isList() ? decl.getElementType() : list.getElementType(), list.get(i));
-				}
-				return result; 
+				// indexed, see getVariables(int, int)
+				return new IVariable[0];
 			}
 
 			@Override
 			public IVariable[] visitMap(Type type) {
-				IMap map = (IMap) value;
-				IVariable[] result = new IVariable[map.size()];
-				int i = 0;
-				for (org.rascalmpl.value.IValue key : map) {
-					result[i++] = new RascalVariable(target, key.toString(), decl.isMap() ? decl.getValueType() : vt, map.get(key));
-				}
-				return result;
+				// indexed, see getVariables(int, int)
+				return new IVariable[0];
 			}
 
 			@Override
@@ -197,13 +312,8 @@ public class RascalValue extends RascalDebugElement implements IValue {
 
 			@Override
 			public IVariable[] visitSet(Type type) {
-				ISet set = (ISet) value;
-				IVariable[] result = new IVariable[set.size()];
-				int i = 0;
-				for (org.rascalmpl.value.IValue elem : set) {
-					result[i++] = new RascalVariable(target, "[" + i + "]", decl.isSet() ? decl.getElementType() : vt, elem);
-				}
-				return result;
+				// indexed, see getVariables(int, int)
+				return new IVariable[0];
 			}
 
 			@Override
@@ -333,19 +443,11 @@ public class RascalValue extends RascalDebugElement implements IValue {
 		});
 	}
 
-	public boolean hasVariables() throws DebugException {
-	  return false;
-	}
-	
 	/* (non-Javadoc)
 	 * @see org.eclipse.debug.core.model.IValue#hasVariables()
 	 */
-	public boolean hasVariables2() throws DebugException {
-		if (value == null) {
-		  return false;
-		}
-		Type type = value.getType();
-		return type.isList() || type.isMap() || type.isSet() || type.isAliased() || type.isNode() || type.isConstructor() || type.isRelation();
+	public boolean hasVariables() throws DebugException {
+		return value != null && getSize() > 0;
 	}
 
 	/* (non-Javadoc)
@@ -30,6 +30,9 @@ public class RascalVariable extends RascalDebugElement implements IVariable {
 
   private final Type declaredType;
 
+	/* created once, such that its value string and children are kept while the frame is shown */
+	private RascalValue cachedValue;
+
 	protected RascalVariable(RascalStackFrame frame, String name, Type declaredType, org.rascalmpl.value.IValue value) {
 		super(frame.getRascalDebugTarget());
 		this.name = name;
@@ -46,7 +49,11 @@ public class RascalVariable extends RascalDebugElement implements IVariable {
 	 * @see org.eclipse.debug.core.model.IVariable#getValue()
 	 */
 	public IValue getValue() throws DebugException {
-		return new RascalValue(frame, declaredType, value);
+		if (cachedValue == null) {
+			cachedValue = new RascalValue(frame, declaredType, value);
+		}
+		
+		return cachedValue;
 	}
 
 	/* (non-Javadoc)
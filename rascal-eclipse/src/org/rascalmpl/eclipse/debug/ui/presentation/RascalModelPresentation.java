@@ -28,6 +28,7 @@ import org.eclipse.ui.part.FileEditorInput;
 import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.IRascalResources;
 import org.rascalmpl.eclipse.debug.core.model.RascalDebugTarget;
+import org.rascalmpl.eclipse.debug.core.model.RascalModuleVariable;
 import org.rascalmpl.eclipse.debug.core.model.RascalStackFrame;
 import org.rascalmpl.eclipse.debug.core.model.RascalThread;
 import org.rascalmpl.eclipse.debug.core.model.RascalValue;
@@ -62,6 +63,8 @@ public class RascalModelPresentation extends LabelProvider implements IDebugMode
 	      return ((RascalValue) element).getReferenceTypeName();
 	    } else if (element instanceof RascalVariable) {
 	      return ((RascalVariable) element).getName();
+	    } else if (element instanceof RascalModuleVariable) {
+	      return ((RascalModuleVariable) element).getName();
 	    }
 	  } catch (DebugException e) {
 	    return null;
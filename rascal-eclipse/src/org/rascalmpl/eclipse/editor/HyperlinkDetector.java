@@ -21,10 +21,9 @@ import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.hyperlink.IHyperlink;
 import org.eclipse.ui.texteditor.ITextEditor;
-import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.preferences.RascalPreferences;
 import org.rascalmpl.eclipse.terms.TermParseController;
-import org.rascalmpl.eclipse.util.ProjectConfig;
+import org.rascalmpl.eclipse.util.PathConfigCache;
 import org.rascalmpl.library.util.PathConfig;
 import org.rascalmpl.value.IMap;
 import org.rascalmpl.value.ISet;
@@ -34,7 +33,6 @@ import org.rascalmpl.value.ITuple;
 import org.rascalmpl.value.IValue;
 import org.rascalmpl.value.type.Type;
 import org.rascalmpl.value.type.TypeFactory;
-import org.rascalmpl.values.ValueFactoryFactory;
 import org.rascalmpl.values.uptr.ITree;
 import org.rascalmpl.values.uptr.TreeAdapter;
 
@@ -66,25 +64,17 @@ public class HyperlinkDetector implements ISourceHyperlinkDetector {
 		    ParseController rascalPc = (ParseController) parseController;
 		    ISourceProject rprj = rascalPc.getProject();
 		    IProject prj = rprj != null ? rprj.getRawProject() : null;
-		    PathConfig pcfg =  prj != null ? new ProjectConfig(ValueFactoryFactory.getValueFactory()).getPathConfig(prj) : new PathConfig();
+		    PathConfig pcfg =  prj != null ? PathConfigCache.getInstance().getPathConfig(prj) : new PathConfig();
 
-		    ISet useDef = imp.getUseDef(rascalPc.getSourceLocation(), pcfg, rascalPc.getModuleName());
+		    UseDefIndex useDef = imp.getUseDefIndex(rascalPc.getSourceLocation(), pcfg, rascalPc.getModuleName());
 
-		    if (!checkUseDefType(useDef)) {
-		        Activator.log(useDef.getType() + " is not a rel[loc,loc] or rel[loc,loc,str]? " + useDef, null);
-		        return new IHyperlink[0];
-		    }
-
-		    return getLinksForRegionFromUseDefRelation(region, useDef);
+		    return getLinksForRegionFromUseDefIndex(region, useDef);
 		}
 		
 		return null;
 	}
 
-    private boolean checkUseDefType(ISet useDef) {
-        return useDef.getType().isSubtypeOf(linksRelType1) || useDef.getType().isSubtypeOf(linksRelType2);
-    }
-	
+
 	private IHyperlink[] getTreeLinks(ITree tree, IRegion region) {
 		IValue xref = tree.asAnnotatable().getAnnotation("hyperlinks");
 		
@@ -140,6 +130,20 @@ public class HyperlinkDetector implements ISourceHyperlinkDetector {
 		return null;
 	}
 
+    private IHyperlink[] getLinksForRegionFromUseDefIndex(IRegion region, UseDefIndex index) {
+        List<IHyperlink> links = new ArrayList<>();
+        
+        for (int i : index.at(region.getOffset())) {
+            links.add(new SourceLocationHyperlink(index.getUse(i), index.getDef(i), index.getLabel(i)));
+        }
+        
+        if (links.isEmpty()) {
+            return null;
+        }
+        
+        return sortAndFilterHyperlinks(links);
+    }
+    
     private IHyperlink[] getLinksForRegionFromUseDefRelation(IRegion region, ISet rel) {
         List<IHyperlink> links = new ArrayList<>();
          
@@ -21,13 +21,21 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 public class IDEServicesModelProvider {
     private final IValueFactory vf;
     private final IKernel kernel;
-    private final Cache<ISourceLocation, IConstructor> useDefCache;
+    // summaries are bounded by their serialized size, in bytes
+    private static final long MAX_CACHE_WEIGHT = 64L * 1024 * 1024;
+    private final Cache<ISourceLocation, SummaryStore.Entry> useDefCache;
+    private final SummaryStore store;
     
     private IDEServicesModelProvider() {
         try {
             vf = ValueFactoryFactory.getValueFactory();
             kernel = Java2Rascal.Builder.bridge(vf, new PathConfig(), IKernel.class).build();
-            useDefCache = Caffeine.newBuilder().weakValues().expireAfterAccess(10, TimeUnit.MINUTES).maximumSize(32).build();
+            useDefCache = Caffeine.newBuilder()
+                    .expireAfterAccess(10, TimeUnit.MINUTES)
+                    .maximumWeight(MAX_CACHE_WEIGHT)
+                    .weigher((ISourceLocation file, SummaryStore.Entry e) -> e.size())
+                    .build();
+            store = new SummaryStore(vf);
         } 
         catch (IOException e) {
             throw new RuntimeException(e);
@@ -64,26 +72,59 @@ public class IDEServicesModelProvider {
         return get(file, pcfg, moduleName, "useDef", vf.set());
     }
     
+    /**
+     * @return the use/def relation of the module, indexed on the offsets of the uses
+     */
+    public UseDefIndex getUseDefIndex(ISourceLocation file, PathConfig pcfg, String moduleName) {
+        SummaryStore.Entry entry = useDefCache.getIfPresent(file);
+        
+        if (entry == null) {
+            getSummary(file, pcfg, moduleName);
+            entry = useDefCache.getIfPresent(file);
+        }
+        
+        // summaries which are not cached are empty, so they have no use/def relation either
+        return entry != null ? entry.getUseDefIndex() : UseDefIndex.of(null);
+    }
+    
     public IConstructor getSummary(ISourceLocation file, PathConfig pcfg, String moduleName) {
-         IConstructor summary = useDefCache.getIfPresent(file);
+         SummaryStore.Entry entry = useDefCache.getIfPresent(file);
          
-         if (summary == null) {
-             try {
-                 summary = kernel.makeSummary(vf.string(moduleName), pcfg.asConstructor(kernel));
-                 if (summary.asWithKeywordParameters().hasParameters()) {
-                     // otherwise it is an empty model which we do not 
-                     // want to cache.
-                     useDefCache.put(file, summary);
-                 }
-             }
-             catch (Throwable e) {
-                 Activator.log("failure to create summary for IDE features", e);
+         if (entry != null) {
+             return entry.getSummary();
+         }
+         
+         // second level: a summary stored by a previous session, if the module did not change since
+         entry = store.read(file, pcfg, moduleName);
+         
+         if (entry != null) {
+             useDefCache.put(file, entry);
+             return entry.getSummary();
+         }
+         
+         IConstructor summary = null;
+         
+         try {
+             summary = kernel.makeSummary(vf.string(moduleName), pcfg.asConstructor(kernel));
+             if (summary.asWithKeywordParameters().hasParameters()) {
+                 // otherwise it is an empty model which we do not 
+                 // want to cache.
+                 entry = store.serialize(file, pcfg, moduleName, summary);
+                 useDefCache.put(file, entry);
+                 store.write(pcfg, moduleName, entry);
              }
          }
+         catch (Throwable e) {
+             Activator.log("failure to create summary for IDE features", e);
+         }
          
          return summary;
      }
     
+    /**
+     * Drops the summary from memory. A stored copy is not used anymore either, 
+     * since it is checked against the hash of the recompiled module.
+     */
     public void clearUseDefCache(ISourceLocation file) {
         useDefCache.invalidate(file);
     }
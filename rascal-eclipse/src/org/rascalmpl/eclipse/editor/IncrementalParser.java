@@ -0,0 +1,418 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2017 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   * Jurgen J. Vinju - Jurgen.Vinju@cwi.nl - CWI
+*******************************************************************************/
+package org.rascalmpl.eclipse.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rascalmpl.library.lang.rascal.syntax.RascalParser;
+import org.rascalmpl.parser.Parser;
+import org.rascalmpl.parser.gtd.exception.ParseError;
+import org.rascalmpl.parser.gtd.result.out.DefaultNodeFlattener;
+import org.rascalmpl.parser.uptr.UPTRNodeFactory;
+import org.rascalmpl.parser.uptr.action.NoActionExecutor;
+import org.rascalmpl.value.IConstructor;
+import org.rascalmpl.value.IList;
+import org.rascalmpl.value.IListWriter;
+import org.rascalmpl.value.ISet;
+import org.rascalmpl.value.ISetWriter;
+import org.rascalmpl.value.ISourceLocation;
+import org.rascalmpl.value.IValue;
+import org.rascalmpl.value.IValueFactory;
+import org.rascalmpl.values.ValueFactoryFactory;
+import org.rascalmpl.values.uptr.ITree;
+import org.rascalmpl.values.uptr.TreeAdapter;
+
+/**
+ * Parses Rascal modules, reusing the previous parse tree when an edit is confined
+ * to a single toplevel declaration. Only that declaration is reparsed; it is spliced
+ * back into the old tree and the source locations of everything after it are shifted.
+ * If the splice can not be proven valid we fall back to parsing the whole module.
+ */
+public class IncrementalParser {
+	private static final IValueFactory VF = ValueFactoryFactory.getValueFactory();
+	private static final String DECLARATION_SORT = "Toplevel";
+
+	private String previousInput;
+	private ITree previousTree;
+
+	private int fullParses = 0;
+	private int incrementalParses = 0;
+	private long reusedCharacters = 0;
+	private long parsedCharacters = 0;
+	private int lastReused = 0;
+
+	/**
+	 * @throws ParseError when the full module does not parse; the incremental path never throws it
+	 */
+	public ITree parse(String input, ISourceLocation loc) {
+		ITree result = null;
+
+		if (previousTree != null && previousInput != null) {
+			result = reparse(input, loc);
+		}
+
+		if (result != null) {
+			incrementalParses++;
+		}
+		else {
+			forget();
+			result = parseFully(input, loc);
+			fullParses++;
+			lastReused = 0;
+			parsedCharacters += input.length();
+		}
+
+		previousInput = input;
+		previousTree = result;
+		return result;
+	}
+
+	/**
+	 * Drops the previous tree, for example after a parse error, such that the next parse is a full one.
+	 */
+	public void forget() {
+		previousInput = null;
+		previousTree = null;
+	}
+
+	public int getFullParses() {
+		return fullParses;
+	}
+
+	public int getIncrementalParses() {
+		return incrementalParses;
+	}
+
+	/**
+	 * @return the number of characters of the last parsed input that were not parsed again
+	 */
+	public int getLastReused() {
+		return lastReused;
+	}
+
+	/**
+	 * @return the fraction of all characters seen so far which were reused instead of parsed
+	 */
+	public double getReuseRatio() {
+		long total = reusedCharacters + parsedCharacters;
+		return total == 0 ? 0.0 : ((double) reusedCharacters) / total;
+	}
+
+	@Override
+	public String toString() {
+		return "full parses: " + fullParses
+				+ ", incremental parses: " + incrementalParses
+				+ ", reused: " + String.format("%.1f%%", getReuseRatio() * 100);
+	}
+
+	protected ITree parseFully(String input, ISourceLocation loc) {
+		return parse(Parser.START_MODULE, input.toCharArray(), loc);
+	}
+
+	private ITree parse(String nonterminal, char[] input, ISourceLocation loc) {
+		return new RascalParser().parse(nonterminal, loc.getURI(), input, new NoActionExecutor(), new DefaultNodeFlattener<IConstructor, ITree, ISourceLocation>(), new UPTRNodeFactory(true));
+	}
+
+	private ITree reparse(String input, ISourceLocation loc) {
+		String old = previousInput;
+
+		if (input.equals(old)) {
+			lastReused = input.length();
+			reusedCharacters += input.length();
+			return previousTree;
+		}
+
+		// locations count code points, the splicing below counts chars
+		if (hasSupplementaryCharacters(input) || hasSupplementaryCharacters(old)) {
+			return null;
+		}
+
+		int max = Math.min(old.length(), input.length());
+		int prefix = 0;
+		while (prefix < max && old.charAt(prefix) == input.charAt(prefix)) {
+			prefix++;
+		}
+
+		int suffix = 0;
+		while (suffix < max - prefix && old.charAt(old.length() - 1 - suffix) == input.charAt(input.length() - 1 - suffix)) {
+			suffix++;
+		}
+
+		int changeEnd = old.length() - suffix;
+		int delta = input.length() - old.length();
+
+		List<Integer> path = new ArrayList<>();
+		ITree declaration = findEnclosingDeclaration(previousTree, prefix, changeEnd, path);
+
+		if (declaration == null) {
+			return null;
+		}
+
+		ISourceLocation oldLoc = TreeAdapter.getLocation(declaration);
+		int start = oldLoc.getOffset();
+		int end = start + oldLoc.getLength() + delta;
+		String fragment = input.substring(start, end);
+
+		ITree replacement;
+		try {
+			replacement = parse(DECLARATION_SORT, fragment.toCharArray(), loc);
+		}
+		catch (ParseError e) {
+			return null;
+		}
+
+		if (replacement == null || !TreeAdapter.isAppl(replacement) || !DECLARATION_SORT.equals(TreeAdapter.getSortName(replacement))) {
+			return null;
+		}
+
+		Relocation relocate = new Relocation(start, oldLoc.getBeginLine() - 1, oldLoc.getBeginColumn());
+		replacement = relocate.tree(replacement);
+
+		if (replacement == null) {
+			// found an ambiguity or cycle, let the full parser report on it
+			return null;
+		}
+
+		ISourceLocation newLoc = TreeAdapter.getLocation(replacement);
+		if (newLoc == null || newLoc.getOffset() != start || newLoc.getLength() != fragment.length()) {
+			return null;
+		}
+
+		Shift shift = new Shift(oldLoc.getOffset() + oldLoc.getLength(), delta, oldLoc.getEndLine(), newLoc.getEndLine() - oldLoc.getEndLine(), newLoc.getEndColumn() - oldLoc.getEndColumn());
+		ITree result = splice(previousTree, path, 0, replacement, shift);
+
+		lastReused = input.length() - fragment.length();
+		reusedCharacters += lastReused;
+		parsedCharacters += fragment.length();
+
+		return result;
+	}
+
+	private static boolean hasSupplementaryCharacters(String input) {
+		return input.codePointCount(0, input.length()) != input.length();
+	}
+
+	/**
+	 * Finds the smallest declaration which strictly contains the changed region [from, to)
+	 * and records the argument indexes which lead to it from the root.
+	 */
+	private static ITree findEnclosingDeclaration(ITree tree, int from, int to, List<Integer> path) {
+		while (TreeAdapter.isAppl(tree)) {
+			if (DECLARATION_SORT.equals(TreeAdapter.getSortName(tree))) {
+				return tree;
+			}
+
+			IList args = TreeAdapter.getArgs(tree);
+			ITree next = null;
+
+			for (int i = 0; i < args.length(); i++) {
+				ITree child = (ITree) args.get(i);
+				ISourceLocation loc = TreeAdapter.getLocation(child);
+
+				if (loc != null && loc.getOffset() < from && to < loc.getOffset() + loc.getLength()) {
+					path.add(i);
+					next = child;
+					break;
+				}
+			}
+
+			if (next == null) {
+				return null;
+			}
+
+			tree = next;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Rebuilds the spine from the root to the replaced declaration. Everything before
+	 * the declaration is shared with the old tree, everything after it is shifted.
+	 */
+	private static ITree splice(ITree tree, List<Integer> path, int depth, ITree replacement, Shift shift) {
+		if (depth == path.size()) {
+			return replacement;
+		}
+
+		IList args = TreeAdapter.getArgs(tree);
+		int index = path.get(depth);
+		IListWriter w = VF.listWriter();
+
+		for (int i = 0; i < args.length(); i++) {
+			ITree child = (ITree) args.get(i);
+
+			if (i < index) {
+				w.append(child);
+			}
+			else if (i == index) {
+				w.append(splice(child, path, depth + 1, replacement, shift));
+			}
+			else {
+				w.append(shift.tree(child));
+			}
+		}
+
+		ITree result = (ITree) tree.set("args", w.done());
+		ISourceLocation loc = TreeAdapter.getLocation(tree);
+
+		if (loc != null) {
+			result = (ITree) result.asAnnotatable().setAnnotation("loc", shift.end(loc));
+		}
+
+		return result;
+	}
+
+	private static abstract class LocationRewriter {
+		protected abstract ISourceLocation rewrite(ISourceLocation loc);
+
+		/**
+		 * @return the rewritten tree, or null if the tree contains something we do not rewrite
+		 */
+		public ITree tree(ITree tree) {
+			if (TreeAdapter.isChar(tree)) {
+				return tree;
+			}
+
+			if (TreeAdapter.isAppl(tree)) {
+				IList args = TreeAdapter.getArgs(tree);
+				IListWriter w = VF.listWriter();
+
+				for (IValue arg : args) {
+					ITree newArg = tree((ITree) arg);
+					if (newArg == null) {
+						return null;
+					}
+					w.append(newArg);
+				}
+
+				return relocate((ITree) tree.set("args", w.done()), tree);
+			}
+
+			if (TreeAdapter.isAmb(tree) && allowAmbiguity()) {
+				ISet alts = TreeAdapter.getAlternatives(tree);
+				ISetWriter w = VF.setWriter();
+
+				for (IValue alt : alts) {
+					ITree newAlt = tree((ITree) alt);
+					if (newAlt == null) {
+						return null;
+					}
+					w.insert(newAlt);
+				}
+
+				return relocate((ITree) tree.set("alternatives", w.done()), tree);
+			}
+
+			return null;
+		}
+
+		protected boolean allowAmbiguity() {
+			return true;
+		}
+
+		private ITree relocate(ITree result, ITree original) {
+			ISourceLocation loc = TreeAdapter.getLocation(original);
+
+			if (loc != null) {
+				return (ITree) result.asAnnotatable().setAnnotation("loc", rewrite(loc));
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Moves the locations of a freshly parsed fragment to where the fragment lives in the document.
+	 */
+	private static class Relocation extends LocationRewriter {
+		private final int offset;
+		private final int lines;
+		private final int column;
+
+		public Relocation(int offset, int lines, int column) {
+			this.offset = offset;
+			this.lines = lines;
+			this.column = column;
+		}
+
+		@Override
+		protected boolean allowAmbiguity() {
+			return false;
+		}
+
+		@Override
+		protected ISourceLocation rewrite(ISourceLocation loc) {
+			if (!loc.hasLineColumn()) {
+				return VF.sourceLocation(loc, loc.getOffset() + offset, loc.getLength());
+			}
+
+			int beginColumn = loc.getBeginLine() == 1 ? loc.getBeginColumn() + column : loc.getBeginColumn();
+			int endColumn = loc.getEndLine() == 1 ? loc.getEndColumn() + column : loc.getEndColumn();
+
+			return VF.sourceLocation(loc, loc.getOffset() + offset, loc.getLength(),
+					loc.getBeginLine() + lines, loc.getEndLine() + lines, beginColumn, endColumn);
+		}
+	}
+
+	/**
+	 * Moves locations which start after the edited declaration by the size of the edit.
+	 * A position on the line where the old declaration ended also moves by the column difference.
+	 */
+	private static class Shift extends LocationRewriter {
+		private final int after;
+		private final int delta;
+		private final int line;
+		private final int lineDelta;
+		private final int columnDelta;
+
+		public Shift(int after, int delta, int line, int lineDelta, int columnDelta) {
+			this.after = after;
+			this.delta = delta;
+			this.line = line;
+			this.lineDelta = lineDelta;
+			this.columnDelta = columnDelta;
+		}
+
+		@Override
+		protected ISourceLocation rewrite(ISourceLocation loc) {
+			if (!loc.hasLineColumn()) {
+				return VF.sourceLocation(loc, loc.getOffset() + delta, loc.getLength());
+			}
+
+			return VF.sourceLocation(loc, loc.getOffset() + delta, loc.getLength(),
+					loc.getBeginLine() + lineDelta, loc.getEndLine() + lineDelta,
+					column(loc.getBeginLine(), loc.getBeginColumn()), column(loc.getEndLine(), loc.getEndColumn()));
+		}
+
+		/**
+		 * For locations that enclose the edit, only the end moves.
+		 */
+		public ISourceLocation end(ISourceLocation loc) {
+			if (loc.getOffset() + loc.getLength() < after) {
+				return loc;
+			}
+
+			if (!loc.hasLineColumn()) {
+				return VF.sourceLocation(loc, loc.getOffset(), loc.getLength() + delta);
+			}
+
+			return VF.sourceLocation(loc, loc.getOffset(), loc.getLength() + delta,
+					loc.getBeginLine(), loc.getEndLine() + lineDelta,
+					loc.getBeginColumn(), column(loc.getEndLine(), loc.getEndColumn()));
+		}
+
+		private int column(int l, int c) {
+			return l == line ? c + columnDelta : c;
+		}
+	}
+}
@@ -37,13 +37,7 @@ import org.rascalmpl.interpreter.Evaluator;
 import org.rascalmpl.interpreter.asserts.Ambiguous;
 import org.rascalmpl.interpreter.control_exceptions.Throw;
 import org.rascalmpl.interpreter.staticErrors.StaticError;
-import org.rascalmpl.library.lang.rascal.syntax.RascalParser;
-import org.rascalmpl.parser.Parser;
 import org.rascalmpl.parser.gtd.exception.ParseError;
-import org.rascalmpl.parser.gtd.result.action.IActionExecutor;
-import org.rascalmpl.parser.gtd.result.out.DefaultNodeFlattener;
-import org.rascalmpl.parser.uptr.UPTRNodeFactory;
-import org.rascalmpl.parser.uptr.action.NoActionExecutor;
 import org.rascalmpl.uri.ProjectURIResolver;
 import org.rascalmpl.uri.file.FileURIResolver;
 import org.rascalmpl.value.IConstructor;
@@ -66,11 +60,13 @@ public class ParseController implements IParseController, IMessageHandlerProvide
 	protected ISourceProject project;
 	protected IConstructor parseTree;
 	protected ParseJob job;
+	protected ParseScheduler scheduler;
 	protected IPath path;
 	protected Language language;
 	protected IDocument document;
 	protected Evaluator parser;
 	protected IWarningHandler warnings;
+	private volatile TokenStream tokens;
 	
 	public IAnnotationTypeInfo getAnnotationTypeInfo() {
 		return null;
@@ -112,7 +108,19 @@ public class ParseController implements IParseController, IMessageHandlerProvide
 	}
 	
 	public Iterator<Object> getTokenIterator(IRegion region) {
-		return parseTree != null ? new TokenIterator(false, parseTree) : null;
+		IConstructor tree = parseTree;
+		
+		if (tree == null) {
+			return null;
+		}
+		
+		TokenStream current = tokens;
+		if (current == null || current.getTree() != tree) {
+			current = new TokenStream(false, tree);
+			tokens = current;
+		}
+		
+		return current.iterator(region);
 	}
 	
 	
@@ -129,6 +137,14 @@ public class ParseController implements IParseController, IMessageHandlerProvide
 		ISourceLocation location = getSourceLocation();
 		
 		initParseJob(handler, location);
+		this.scheduler = new ParseScheduler(job, job::initialize, () -> job.parseTree, (tree) -> this.parseTree = (IConstructor) tree);
+	}
+	
+	/**
+	 * @return the scheduler which coalesces parses of this editor, for its counters and delay
+	 */
+	public ParseScheduler getParseScheduler() {
+		return scheduler;
 	}
 	
 	public ISourceLocation getSourceLocation() {
@@ -165,6 +181,7 @@ public class ParseController implements IParseController, IMessageHandlerProvide
 
 		protected String input;
 		public ITree parseTree = null;
+		private final IncrementalParser incrementalParser = new IncrementalParser();
 
 		public ParseJob(String name, ISourceLocation uri, IMessageHandler handler) {
 			super(name);
@@ -189,9 +206,15 @@ public class ParseController implements IParseController, IMessageHandlerProvide
 		    }
 		}
 		
-		private ITree parseModule(char[] input, ISourceLocation loc) {
-	        IActionExecutor<ITree> actions = new NoActionExecutor();    
-	        return new RascalParser().parse(Parser.START_MODULE, loc.getURI(), input, actions, new DefaultNodeFlattener<IConstructor, ITree, ISourceLocation>(), new UPTRNodeFactory(true));
+		/**
+		 * @return statistics on how much of the previous parse tree was reused by the last parses
+		 */
+		public IncrementalParser getIncrementalParser() {
+			return incrementalParser;
+		}
+		
+		private ITree parseModule(String input, ISourceLocation loc) {
+	        return incrementalParser.parse(input, loc);
 	    }
 		
 		@Override
@@ -206,7 +229,18 @@ public class ParseController implements IParseController, IMessageHandlerProvide
 			}
 			
 			try {
-			    parseTree = parseModule(input.toCharArray(), uri);
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				
+				ITree tree = parseModule(input, uri);
+				
+				if (monitor.isCanceled()) {
+					// newer text is waiting, this tree would be outdated
+					return Status.CANCEL_STATUS;
+				}
+				
+			    parseTree = tree;
 			}
 			catch (FactTypeUseException ftue) {
 				Activator.getInstance().logException("parsing rascal failed", ftue);
@@ -271,18 +305,8 @@ public class ParseController implements IParseController, IMessageHandlerProvide
 	
 	@Override
 	public Object parse(String input, IProgressMonitor monitor) {
-		parseTree = null;
-		try {
-			job.initialize(input);
-			job.schedule();
-			job.join();
-			parseTree = job.parseTree;
-			return parseTree;
-		} catch (InterruptedException e) {
-			Activator.getInstance().logException("parser interrupted", e);
-		}
-		
-		return null;
+		// the current tree stays available to highlighters until a newer parse completes
+		return scheduler.parse(input, monitor);
 	}
 	
 	protected void setParseError(int offset, int length, int beginLine, int beginColumn, int endLine, int endColumn, String message){
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2017 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   * Jurgen J. Vinju - Jurgen.Vinju@cwi.nl - CWI
+*******************************************************************************/
+package org.rascalmpl.eclipse.editor;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+
+/**
+ * Runs a parse job for the latest text only. New text cancels a parse which is still running
+ * and the job is started after a short delay, such that a burst of edits leads to a single parse.
+ * Callers which are overtaken by newer text get the latest completed result instead of waiting
+ * for a parse of text that is already outdated.
+ *
+ * The job must look at its monitor and return {@link IStatus#CANCEL} when it was canceled.
+ */
+public class ParseScheduler {
+	public static final long DEFAULT_DELAY = 50;
+
+	private final Job job;
+	private final Consumer<String> initializer;
+	private final Supplier<Object> result;
+	private final Consumer<Object> onCompleted;
+	private volatile long delay = DEFAULT_DELAY;
+
+	private String pendingInput;
+	private long pendingGeneration = 0;
+	private long runningGeneration = 0;
+	private long completedGeneration = 0;
+	private boolean scheduled = false;
+	private boolean running = false;
+	private Object latest;
+
+	private int started = 0;
+	private int cancelled = 0;
+	private int completed = 0;
+
+	/**
+	 * @param job          the parse job, which is only ever scheduled by this scheduler
+	 * @param initializer  gives the job its input, called right before it runs
+	 * @param result       reads the result of the job after it completed
+	 * @param onCompleted  receives every completed result, for example to update the current tree
+	 */
+	public ParseScheduler(Job job, Consumer<String> initializer, Supplier<Object> result, Consumer<Object> onCompleted) {
+		this.job = job;
+		this.initializer = initializer;
+		this.result = result;
+		this.onCompleted = onCompleted;
+
+		job.addJobChangeListener(new JobChangeAdapter() {
+			@Override
+			public void aboutToRun(IJobChangeEvent event) {
+				starting();
+			}
+
+			@Override
+			public void done(IJobChangeEvent event) {
+				finished(event.getResult());
+			}
+		});
+	}
+
+	public void setDelay(long delay) {
+		this.delay = delay;
+	}
+
+	public long getDelay() {
+		return delay;
+	}
+
+	public synchronized int getStarted() {
+		return started;
+	}
+
+	public synchronized int getCancelled() {
+		return cancelled;
+	}
+
+	public synchronized int getCompleted() {
+		return completed;
+	}
+
+	/**
+	 * @return the result of the most recently completed parse, which may be for older text
+	 */
+	public synchronized Object getLatest() {
+		return latest;
+	}
+
+	/**
+	 * Parses the input and waits for the result. Returns early with the latest completed
+	 * result if newer input arrives in the meantime or if the monitor is canceled.
+	 */
+	public Object parse(String input, IProgressMonitor monitor) {
+		long generation;
+
+		synchronized (this) {
+			generation = ++pendingGeneration;
+			pendingInput = input;
+
+			if (!scheduled) {
+				scheduled = true;
+				job.schedule(delay);
+			}
+			else if (running) {
+				job.cancel();
+			}
+			// else the job is still waiting and will pick up the new input when it starts
+
+			try {
+				while (completedGeneration < generation && pendingGeneration == generation) {
+					if (monitor != null && monitor.isCanceled()) {
+						if (running) {
+							job.cancel();
+						}
+						break;
+					}
+
+					wait(10);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			return latest;
+		}
+	}
+
+	private synchronized void starting() {
+		initializer.accept(pendingInput);
+		runningGeneration = pendingGeneration;
+		running = true;
+		started++;
+	}
+
+	private synchronized void finished(IStatus status) {
+		running = false;
+
+		if (status != null && status.getSeverity() == IStatus.CANCEL) {
+			cancelled++;
+		}
+		else {
+			completed++;
+			completedGeneration = runningGeneration;
+			latest = result.get();
+			onCompleted.accept(latest);
+		}
+
+		if (pendingGeneration > runningGeneration) {
+			job.schedule(delay);
+		}
+		else {
+			scheduled = false;
+			pendingInput = null;
+		}
+
+		notifyAll();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "parses started: " + started + ", cancelled: " + cancelled + ", completed: " + completed;
+	}
+}
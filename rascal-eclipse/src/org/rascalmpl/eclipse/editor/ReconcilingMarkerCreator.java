@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2017 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.rascalmpl.eclipse.Activator;
+
+import io.usethesource.impulse.parser.IMessageHandler;
+
+/**
+ * A message handler which, unlike impulse's MarkerCreator, does not expect the old markers to be
+ * deleted first. It collects the messages for a single file and on {@link #endMessages()} compares them
+ * to the markers of the file by offset, length, severity and message: markers which are still
+ * reported are left alone, and only the obsolete ones are deleted and the new ones created. This
+ * is done in one workspace operation, so listeners see a single (usually small) marker delta.
+ */
+public class ReconcilingMarkerCreator implements IMessageHandler {
+	private final IFile file;
+	private final String markerType;
+	private final boolean includeSubtypes;
+	private final List<Map<String,Object>> messages = new ArrayList<Map<String,Object>>();
+
+	public ReconcilingMarkerCreator(IFile file, String markerType) {
+		this(file, markerType, false);
+	}
+
+	/**
+	 * @param includeSubtypes whether markers of subtypes of the marker type are obsolete as well,
+	 *        like with {@link IResource#deleteMarkers(String, boolean, int)}
+	 */
+	public ReconcilingMarkerCreator(IFile file, String markerType, boolean includeSubtypes) {
+		this.file = file;
+		this.markerType = markerType;
+		this.includeSubtypes = includeSubtypes;
+	}
+
+	@Override
+	public void clearMessages() {
+		messages.clear();
+	}
+
+	@Override
+	public void startMessageGroup(String groupName) {
+	}
+
+	@Override
+	public void endMessageGroup() {
+	}
+
+	@Override
+	public void handleSimpleMessage(String msg, int startOffset, int endOffset, int startCol, int endCol, int startLine, int endLine) {
+		handleSimpleMessage(msg, startOffset, endOffset, startCol, endCol, startLine, endLine, null);
+	}
+
+	@Override
+	public void handleSimpleMessage(String msg, int startOffset, int endOffset, int startCol, int endCol, int startLine, int endLine, Map<String, Object> attributes) {
+		Map<String,Object> marker = new HashMap<String,Object>();
+		marker.put(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		if (attributes != null) {
+			marker.putAll(attributes);
+		}
+		marker.put(IMarker.MESSAGE, msg);
+		if (startLine >= 0) {
+			marker.put(IMarker.LINE_NUMBER, startLine);
+		}
+		if (startOffset >= 0) {
+			marker.put(IMarker.CHAR_START, startOffset);
+			marker.put(IMarker.CHAR_END, endOffset);
+		}
+		messages.add(marker);
+	}
+
+	@Override
+	public void endMessages() {
+		try {
+			reconcile(null);
+		}
+		catch (CoreException e) {
+			Activator.log("could not update markers of " + file, e);
+		}
+	}
+
+	/**
+	 * Makes the markers of the file match the messages which were handled so far.
+	 */
+	public void reconcile(IProgressMonitor monitor) throws CoreException {
+		if (!file.exists()) {
+			return;
+		}
+
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		workspace.run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				Map<List<Object>, LinkedList<IMarker>> current = new HashMap<List<Object>, LinkedList<IMarker>>();
+				List<IMarker> obsolete = new ArrayList<IMarker>();
+
+				for (IMarker m : file.findMarkers(markerType, includeSubtypes, IResource.DEPTH_ZERO)) {
+					if (!m.getType().equals(markerType)) {
+						obsolete.add(m);
+						continue;
+					}
+
+					List<Object> key = key(m.getAttribute(IMarker.CHAR_START, -1), m.getAttribute(IMarker.CHAR_END, -1),
+							m.getAttribute(IMarker.SEVERITY, -1), m.getAttribute(IMarker.MESSAGE, ""));
+					LinkedList<IMarker> same = current.get(key);
+					if (same == null) {
+						same = new LinkedList<IMarker>();
+						current.put(key, same);
+					}
+					same.add(m);
+				}
+
+				List<Map<String,Object>> added = new ArrayList<Map<String,Object>>();
+				for (Map<String,Object> msg : messages) {
+					LinkedList<IMarker> same = current.get(key(msg));
+					if (same != null && !same.isEmpty()) {
+						same.removeFirst(); // still there, keep it
+					}
+					else {
+						added.add(msg);
+					}
+				}
+
+				for (LinkedList<IMarker> same : current.values()) {
+					obsolete.addAll(same);
+				}
+
+				if (!obsolete.isEmpty()) {
+					workspace.deleteMarkers(obsolete.toArray(new IMarker[obsolete.size()]));
+				}
+
+				for (Map<String,Object> msg : added) {
+					file.createMarker(markerType).setAttributes(msg);
+				}
+			}
+		}, workspace.getRuleFactory().markerRule(file), IWorkspace.AVOID_UPDATE, monitor);
+	}
+
+	private static List<Object> key(Map<String,Object> msg) {
+		return key(intAttribute(msg, IMarker.CHAR_START), intAttribute(msg, IMarker.CHAR_END),
+				intAttribute(msg, IMarker.SEVERITY), (String) msg.get(IMarker.MESSAGE));
+	}
+
+	private static int intAttribute(Map<String,Object> msg, String name) {
+		Object value = msg.get(name);
+		return value instanceof Integer ? (Integer) value : -1;
+	}
+
+	private static List<Object> key(int start, int end, int severity, String message) {
+		return Arrays.<Object>asList(start, end, severity, message);
+	}
+}
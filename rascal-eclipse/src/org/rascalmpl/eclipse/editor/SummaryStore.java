@@ -0,0 +1,231 @@
+package org.rascalmpl.eclipse.editor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.rascalmpl.eclipse.Activator;
+import org.rascalmpl.library.util.PathConfig;
+import org.rascalmpl.uri.URIResolverRegistry;
+import org.rascalmpl.uri.URIUtil;
+import org.rascalmpl.value.IConstructor;
+import org.rascalmpl.value.ISet;
+import org.rascalmpl.value.ISourceLocation;
+import org.rascalmpl.value.IValue;
+import org.rascalmpl.value.IValueFactory;
+import org.rascalmpl.value.io.binary.stream.IValueInputStream;
+import org.rascalmpl.value.io.binary.stream.IValueOutputStream;
+import org.rascalmpl.value.io.binary.stream.IValueOutputStream.CompressionRate;
+import org.rascalmpl.value.type.TypeStore;
+
+/**
+ * Keeps IDE summaries in the bin folder of a project, next to the compiler's binaries, such that
+ * they survive restarts. A stored summary is only used when the hash of the module source and
+ * its .tc file is still the same as when the summary was made.
+ */
+public class SummaryStore {
+    public static final String SUMMARY_EXT = "summary";
+    private static final String TC_EXT = "tc";
+
+    private final IValueFactory vf;
+    private final URIResolverRegistry reg = URIResolverRegistry.getInstance();
+
+    public SummaryStore(IValueFactory vf) {
+        this.vf = vf;
+    }
+
+    /**
+     * A summary with the hash of the module it was made for. The serialized form is only
+     * kept until it is written, after that only its size is remembered.
+     */
+    public static class Entry {
+        private final IConstructor summary;
+        private final String hash;
+        private final int size;
+        private volatile byte[] bytes;
+        private volatile UseDefIndex useDefIndex;
+
+        private Entry(IConstructor summary, String hash, byte[] bytes, boolean stored) {
+            this.summary = summary;
+            this.hash = hash;
+            this.size = bytes.length;
+            this.bytes = stored ? null : bytes;
+        }
+
+        public IConstructor getSummary() {
+            return summary;
+        }
+
+        /**
+         * @return the use/def relation of the summary, indexed on first use
+         */
+        public UseDefIndex getUseDefIndex() {
+            UseDefIndex index = useDefIndex;
+
+            if (index == null) {
+                IValue useDef = summary.asWithKeywordParameters().getParameter("useDef");
+
+                if (useDef instanceof ISet && UseDefIndex.isUseDefRelation((ISet) useDef)) {
+                    index = UseDefIndex.of((ISet) useDef);
+                }
+                else {
+                    if (useDef != null) {
+                        Activator.log(useDef.getType() + " is not a rel[loc,loc] or rel[loc,loc,str]? " + useDef, null);
+                    }
+                    index = UseDefIndex.of(null);
+                }
+
+                useDefIndex = index;
+            }
+
+            return index;
+        }
+
+        /**
+         * @return the size of the serialized summary, a measure for its size in memory
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * @return the stored summary, or null if there is none or it is out of date
+     */
+    public Entry read(ISourceLocation file, PathConfig pcfg, String moduleName) {
+        ISourceLocation store = location(pcfg, moduleName);
+
+        try {
+            if (!reg.exists(store)) {
+                return null;
+            }
+
+            String hash;
+            byte[] bytes;
+
+            try (DataInputStream in = new DataInputStream(reg.getInputStream(store))) {
+                hash = in.readUTF();
+
+                if (!hash.equals(hash(file, pcfg, moduleName))) {
+                    return null;
+                }
+
+                ByteArrayOutputStream rest = new ByteArrayOutputStream();
+                byte[] buf = new byte[8192];
+                int read;
+                while ((read = in.read(buf)) != -1) {
+                    rest.write(buf, 0, read);
+                }
+                bytes = rest.toByteArray();
+            }
+
+            try (IValueInputStream values = new IValueInputStream(new ByteArrayInputStream(bytes), vf, () -> new TypeStore())) {
+                return new Entry((IConstructor) values.read(), hash, bytes, true);
+            }
+        }
+        catch (IOException | ClassCastException e) {
+            // an unreadable summary is simply recomputed
+            return null;
+        }
+    }
+
+    /**
+     * Serializes a summary. The result is written later with {@link #write}, and its size
+     * is used to bound the in-memory cache.
+     */
+    public Entry serialize(ISourceLocation file, PathConfig pcfg, String moduleName, IConstructor summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (IValueOutputStream out = new IValueOutputStream(bytes, vf, CompressionRate.Fast)) {
+            out.write(summary);
+        }
+
+        return new Entry(summary, hash(file, pcfg, moduleName), bytes.toByteArray(), false);
+    }
+
+    /**
+     * Writes the entry in a background job, since the workspace may be locked by a build.
+     * The serialized form of the entry is dropped once it was written.
+     */
+    public void write(PathConfig pcfg, String moduleName, Entry entry) {
+        ISourceLocation store = location(pcfg, moduleName);
+
+        Job job = new Job("Storing summary of " + moduleName) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                byte[] bytes = entry.bytes;
+
+                if (bytes == null) {
+                    // written already
+                    return Status.OK_STATUS;
+                }
+
+                try (DataOutputStream out = new DataOutputStream(reg.getOutputStream(store, false))) {
+                    out.writeUTF(entry.hash);
+                    out.write(bytes);
+                }
+                catch (IOException e) {
+                    Activator.log("could not store summary of " + moduleName, e);
+                }
+                finally {
+                    // also when it failed, then the summary is simply recomputed in a next session
+                    entry.bytes = null;
+                }
+
+                return Status.OK_STATUS;
+            }
+        };
+
+        job.setSystem(true);
+        job.schedule();
+    }
+
+    private ISourceLocation location(PathConfig pcfg, String moduleName) {
+        return URIUtil.getChildLocation(pcfg.getBin(), modulePath(moduleName) + "." + SUMMARY_EXT);
+    }
+
+    private static String modulePath(String moduleName) {
+        return moduleName.replaceAll("::", "/");
+    }
+
+    private String hash(ISourceLocation file, PathConfig pcfg, String moduleName) throws IOException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            digest(md, file);
+
+            ISourceLocation tc = URIUtil.getChildLocation(pcfg.getBin(), modulePath(moduleName) + "." + TC_EXT);
+            if (reg.exists(tc)) {
+                digest(md, tc);
+            }
+
+            StringBuilder b = new StringBuilder();
+            for (byte d : md.digest()) {
+                b.append(String.format("%02x", d));
+            }
+            return b.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void digest(MessageDigest md, ISourceLocation loc) throws IOException {
+        try (InputStream in = reg.getInputStream(loc)) {
+            byte[] buf = new byte[8192];
+            int read;
+
+            while ((read = in.read(buf)) != -1) {
+                md.update(buf, 0, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2017 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   * Jurgen J. Vinju - Jurgen.Vinju@cwi.nl - CWI
+ *   * Arnold Lankamp - Arnold.Lankamp@cwi.nl
+*******************************************************************************/
+package org.rascalmpl.eclipse.editor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.IRegion;
+import org.rascalmpl.value.IConstructor;
+import org.rascalmpl.value.ISourceLocation;
+import org.rascalmpl.value.IString;
+import org.rascalmpl.value.IValue;
+import org.rascalmpl.values.uptr.ITree;
+import org.rascalmpl.values.uptr.ProductionAdapter;
+import org.rascalmpl.values.uptr.TreeAdapter;
+import org.rascalmpl.values.uptr.visitors.TreeVisitor;
+
+/**
+ * The tokens of a parse tree, collected once and stored as parallel int arrays
+ * sorted by offset. Highlighters ask for the tokens of a region, which are found
+ * with a binary search instead of a walk over the whole tree.
+ */
+public class TokenStream {
+	private final IConstructor tree;
+	private final List<String> categories = new ArrayList<String>();
+	private final Map<String, Integer> categoryIds = new HashMap<String, Integer>();
+	private final boolean showAmb;
+
+	private int size = 0;
+	private int[] offsets = new int[1000];
+	private int[] lengths = new int[1000];
+	private int[] categoryOf = new int[1000];
+
+	/**
+	 * maxEnds[i] is the largest end offset of tokens 0..i. Nested tokens make the
+	 * ends themselves unsorted, but this running maximum is monotone and can be searched.
+	 */
+	private int[] maxEnds;
+
+	public TokenStream(boolean showAmb, IConstructor parseTree) {
+		this.tree = parseTree;
+		this.showAmb = false;
+
+		if (parseTree != null) {
+			parseTree.accept(new LexicalCollector());
+		}
+
+		sort();
+		computeMaxEnds();
+	}
+
+	/**
+	 * @return the tree these tokens were computed from, to check whether a cached stream is still current
+	 */
+	public IConstructor getTree() {
+		return tree;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getOffset(int i) {
+		return offsets[i];
+	}
+
+	public int getLength(int i) {
+		return lengths[i];
+	}
+
+	public String getCategory(int i) {
+		return categories.get(categoryOf[i]);
+	}
+
+	/**
+	 * @return the index of the first token that may overlap with the given offset
+	 */
+	public int first(int offset) {
+		int lo = 0;
+		int hi = size;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (maxEnds[mid] <= offset) {
+				lo = mid + 1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * @param region the region to highlight, or null for the whole tree
+	 */
+	public TokenIterator iterator(IRegion region) {
+		if (region == null) {
+			return new TokenIterator(this, Integer.MIN_VALUE, Integer.MAX_VALUE);
+		}
+
+		return new TokenIterator(this, region.getOffset(), region.getOffset() + region.getLength());
+	}
+
+	private void add(String category, int offset, int length) {
+		Integer id = categoryIds.get(category);
+		if (id == null) {
+			id = categories.size();
+			categories.add(category);
+			categoryIds.put(category, id);
+		}
+
+		if (size == offsets.length) {
+			int newSize = size * 2;
+			offsets = Arrays.copyOf(offsets, newSize);
+			lengths = Arrays.copyOf(lengths, newSize);
+			categoryOf = Arrays.copyOf(categoryOf, newSize);
+		}
+
+		offsets[size] = offset;
+		lengths[size] = length;
+		categoryOf[size] = id;
+		size++;
+	}
+
+	private void sort() {
+		boolean sorted = true;
+		for (int i = 1; i < size && sorted; i++) {
+			sorted = offsets[i - 1] <= offsets[i];
+		}
+
+		if (sorted) {
+			return;
+		}
+
+		// the collector emits parents after their children; sort on offset but keep that order for ties
+		long[] keys = new long[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = (((long) offsets[i]) << 32) | i;
+		}
+		Arrays.sort(keys);
+
+		int[] newOffsets = new int[size];
+		int[] newLengths = new int[size];
+		int[] newCategories = new int[size];
+		for (int i = 0; i < size; i++) {
+			int old = (int) keys[i];
+			newOffsets[i] = offsets[old];
+			newLengths[i] = lengths[old];
+			newCategories[i] = categoryOf[old];
+		}
+
+		offsets = newOffsets;
+		lengths = newLengths;
+		categoryOf = newCategories;
+	}
+
+	private void computeMaxEnds() {
+		maxEnds = new int[size];
+		int max = Integer.MIN_VALUE;
+
+		for (int i = 0; i < size; i++) {
+			max = Math.max(max, offsets[i] + lengths[i]);
+			maxEnds[i] = max;
+		}
+	}
+
+	private class LexicalCollector extends TreeVisitor<RuntimeException>{
+		private int location;
+
+		public LexicalCollector(){
+			super();
+
+			location = 0;
+		}
+
+		public ITree visitTreeAmb(ITree arg) {
+			if (showAmb) {
+				int offset = location;
+				ISourceLocation ambLoc = TreeAdapter.getLocation(arg);
+				int length = ambLoc != null ? ambLoc.getLength() : TreeAdapter.yield(arg).length();
+
+				location += length;
+				add(TreeAdapter.META_AMBIGUITY, offset, length);
+			}
+			else {
+				TreeAdapter.getAlternatives(arg).iterator().next().accept(this);
+			}
+			return arg;
+
+		}
+
+		public ITree visitTreeAppl(ITree arg){
+			IValue catAnno = arg.asAnnotatable().getAnnotation("category");
+			String category = null;
+
+			if (catAnno != null) {
+				category = ((IString) catAnno).getValue();
+			}
+
+			IConstructor prod = TreeAdapter.getProduction(arg);
+			if (category == null && ProductionAdapter.isDefault(prod)) {
+				category = ProductionAdapter.getCategory(prod);
+			}
+
+			// It's not so nice to link the sort name to the token color constant ...
+			if(TreeAdapter.NONTERMINAL_LABEL.equals(ProductionAdapter.getSortName(prod))){
+				category = TreeAdapter.NONTERMINAL_LABEL;
+			}
+
+			// short cut, if we have source locations and a category we found a long token
+			ISourceLocation loc = TreeAdapter.getLocation(arg);
+
+			// Always sync location with locs because of concrete syntax stuff in Rascal.
+			if (loc != null) {
+				location = loc.getOffset();
+			}
+
+
+			if (category != null && loc != null) {
+				add(category, location, loc.getLength());
+				location += loc.getLength();
+				return arg;
+			}
+
+
+			// now we go down in the tree to find more tokens
+			int offset = location;
+
+			for (IValue child : TreeAdapter.getArgs(arg)){
+				child.accept(this);
+			}
+
+			if (ProductionAdapter.isSkipped(prod)) {
+				category = TreeAdapter.META_SKIPPED;
+			}
+
+			if (ProductionAdapter.isDefault(prod) && (TreeAdapter.isLiteral(arg) || TreeAdapter.isCILiteral(arg))) {
+				if (category == null){
+					category = TreeAdapter.META_KEYWORD;
+
+					for (IValue child : TreeAdapter.getArgs(arg)) {
+						int c = TreeAdapter.getCharacter((ITree) child);
+						if (c != '-' && !Character.isJavaIdentifierPart(c)){
+							category = null;
+						}
+					}
+
+					if (category == null) {
+						category = TreeAdapter.NORMAL;
+					}
+				}
+			}
+
+			if (category != null) {
+				add(category, offset, loc != null ? loc.getLength() : location - offset);
+			}
+
+			return arg;
+		}
+
+		public ITree visitTreeChar(ITree arg){
+			++location;
+
+			return arg;
+		}
+
+		public ITree visitTreeCycle(ITree arg){
+			return arg;
+		}
+	}
+}
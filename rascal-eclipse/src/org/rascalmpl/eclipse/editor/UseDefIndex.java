@@ -0,0 +1,136 @@
+package org.rascalmpl.eclipse.editor;
+
+import java.util.Arrays;
+
+import org.rascalmpl.value.ISet;
+import org.rascalmpl.value.ISourceLocation;
+import org.rascalmpl.value.IString;
+import org.rascalmpl.value.ITuple;
+import org.rascalmpl.value.IValue;
+import org.rascalmpl.value.type.Type;
+import org.rascalmpl.value.type.TypeFactory;
+
+/**
+ * A use/def relation (rel[loc use, loc def] or rel[loc use, loc def, str label]) sorted on
+ * the offset of the use, such that the uses under an offset are found with a binary search
+ * instead of a scan of the whole relation.
+ */
+public class UseDefIndex {
+    private static final TypeFactory tf = TypeFactory.getInstance();
+    private static final Type linksRelType1 = tf.relType(tf.sourceLocationType(), tf.sourceLocationType());
+    private static final Type linksRelType2 = tf.relType(tf.sourceLocationType(), tf.sourceLocationType(), tf.stringType());
+    private static final UseDefIndex EMPTY = new UseDefIndex(new ITuple[0], false);
+
+    private final int[] offsets;
+    private final int[] ends;
+    /** maxEnds[i] is the largest end of the uses 0..i, which makes the backwards scan stop early */
+    private final int[] maxEnds;
+    private final ISourceLocation[] uses;
+    private final ISourceLocation[] defs;
+    private final String[] labels;
+
+    private UseDefIndex(ITuple[] tuples, boolean labeled) {
+        Arrays.sort(tuples, (a, b) -> Integer.compare(((ISourceLocation) a.get(0)).getOffset(), ((ISourceLocation) b.get(0)).getOffset()));
+
+        int size = tuples.length;
+        offsets = new int[size];
+        ends = new int[size];
+        maxEnds = new int[size];
+        uses = new ISourceLocation[size];
+        defs = new ISourceLocation[size];
+        labels = labeled ? new String[size] : null;
+
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            ITuple t = tuples[i];
+            uses[i] = (ISourceLocation) t.get(0);
+            defs[i] = (ISourceLocation) t.get(1);
+            offsets[i] = uses[i].getOffset();
+            ends[i] = offsets[i] + uses[i].getLength();
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+
+            if (labeled) {
+                labels[i] = ((IString) t.get(2)).getValue();
+            }
+        }
+    }
+
+    public static boolean isUseDefRelation(ISet rel) {
+        return rel.getType().isSubtypeOf(linksRelType1) || rel.getType().isSubtypeOf(linksRelType2);
+    }
+
+    /**
+     * @param rel a rel[loc,loc] or rel[loc,loc,str]; uses without offsets are left out
+     */
+    public static UseDefIndex of(ISet rel) {
+        if (rel == null || rel.isEmpty()) {
+            return EMPTY;
+        }
+
+        boolean labeled = rel.getType().getElementType().getArity() == 3 && rel.getType().getElementType().getFieldType(2).isString();
+        ITuple[] tuples = new ITuple[rel.size()];
+        int size = 0;
+
+        for (IValue v : rel) {
+            ITuple t = (ITuple) v;
+
+            if (((ISourceLocation) t.get(0)).hasOffsetLength()) {
+                tuples[size++] = t;
+            }
+        }
+
+        return new UseDefIndex(Arrays.copyOf(tuples, size), labeled);
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @return the indexes of all uses which contain the given offset
+     */
+    public int[] at(int offset) {
+        // the last use which starts at or before the offset
+        int lo = 0;
+        int hi = offsets.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (offsets[mid] <= offset) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+
+        int[] result = new int[4];
+        int count = 0;
+
+        for (int i = lo - 1; i >= 0 && maxEnds[i] > offset; i--) {
+            if (ends[i] > offset) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    public ISourceLocation getUse(int i) {
+        return uses[i];
+    }
+
+    public ISourceLocation getDef(int i) {
+        return defs[i];
+    }
+
+    /**
+     * @return the label of the link, or the printed definition when the relation has no labels
+     */
+    public String getLabel(int i) {
+        return labels != null ? labels[i] : defs[i].toString();
+    }
+}
@@ -1,14 +1,29 @@
 package org.rascalmpl.eclipse.library.lang.java.jdt.m3.internal;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -22,23 +37,124 @@ import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.rascalmpl.interpreter.IEvaluatorContext;
+import org.rascalmpl.interpreter.result.ICallableValue;
 import org.rascalmpl.interpreter.utils.RuntimeExceptionFactory;
+import org.rascalmpl.uri.URIResolverRegistry;
 import org.rascalmpl.uri.URIUtil;
 import org.rascalmpl.value.IBool;
+import org.rascalmpl.value.IConstructor;
 import org.rascalmpl.value.ISet;
 import org.rascalmpl.value.ISetWriter;
 import org.rascalmpl.value.ISourceLocation;
 import org.rascalmpl.value.IString;
+import org.rascalmpl.value.ITuple;
 import org.rascalmpl.value.IValue;
 import org.rascalmpl.value.IValueFactory;
+import org.rascalmpl.value.IWithKeywordParameters;
+import org.rascalmpl.value.io.binary.stream.IValueOutputStream;
+import org.rascalmpl.value.io.binary.stream.IValueOutputStream.CompressionRate;
+import org.rascalmpl.value.type.Type;
 import org.rascalmpl.value.type.TypeStore;
 
 public class EclipseJavaCompiler extends org.rascalmpl.library.lang.java.m3.internal.EclipseJavaCompiler {
 
+    private static final int MIN_BATCH_SIZE = 100;
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int MAX_BATCHES = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final Set<String> LOCAL_SCHEMES = new HashSet<>(Arrays.asList("java+variable", "java+parameter", "java+anonymousClass"));
+    private static final String[] API_RELATIONS = { "extends", "implements", "modifiers", "types" };
+    
+    /** 
+     * per project, the last M3 of every compilation unit. These are held softly, such that the 
+     * M3s of a large project can not push the IDE out of memory, and dropped when the project is
+     * closed, deleted or renamed. 
+     */
+    private static final Map<String, SoftReference<Map<String, CachedM3>>> m3Cache = new ConcurrentHashMap<>();
+    
+    static {
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(EclipseJavaCompiler::evict, 
+                IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE | IResourceChangeEvent.POST_CHANGE);
+    }
+
     public EclipseJavaCompiler(IValueFactory vf) {
         super(vf);
     }
     
+    /**
+     * The M3 of a unit, with the modification stamp of the unit it was made from. The declarations of the
+     * unit which other units can refer to are kept apart: as long as those are the same, the M3s of the
+     * other units stay valid when this unit changes.
+     */
+    private static class CachedM3 {
+        private final long stamp;
+        private final boolean errorRecovery;
+        private final IValue m3;
+        private final Set<IValue> api = new HashSet<>();
+        
+        CachedM3(long stamp, boolean errorRecovery, IValue m3) {
+            this.stamp = stamp;
+            this.errorRecovery = errorRecovery;
+            this.m3 = m3;
+            
+            IWithKeywordParameters<? extends IConstructor> params = ((IConstructor) m3).asWithKeywordParameters();
+            IValue declarations = params.getParameter("declarations");
+            if (declarations instanceof ISet) {
+                for (IValue t : (ISet) declarations) {
+                    if (!isLocal(((ITuple) t).get(0))) {
+                        api.add(((ITuple) t).get(0));
+                    }
+                }
+            }
+            
+            for (String relation : API_RELATIONS) {
+                IValue rel = params.getParameter(relation);
+                if (rel instanceof ISet) {
+                    for (IValue t : (ISet) rel) {
+                        if (!isLocal(((ITuple) t).get(0))) {
+                            api.add(t);
+                        }
+                    }
+                }
+            }
+        }
+        
+        boolean isValid(long stamp, boolean errorRecovery) {
+            return stamp != IResource.NULL_STAMP && this.stamp == stamp && this.errorRecovery == errorRecovery;
+        }
+        
+        private static boolean isLocal(IValue loc) {
+            return loc instanceof ISourceLocation && LOCAL_SCHEMES.contains(((ISourceLocation) loc).getScheme());
+        }
+    }
+    
+    private static Map<String, CachedM3> cachedM3s(String project) {
+        SoftReference<Map<String, CachedM3>> ref = m3Cache.get(project);
+        Map<String, CachedM3> cached = ref != null ? ref.get() : null;
+        
+        if (cached == null) {
+            cached = new ConcurrentHashMap<>();
+            m3Cache.put(project, new SoftReference<>(cached));
+        }
+        
+        return cached;
+    }
+    
+    private static void evict(IResourceChangeEvent event) {
+        if (event.getResource() instanceof IProject) {
+            // closing or deleting
+            m3Cache.remove(event.getResource().getName());
+            return;
+        }
+        
+        IResourceDelta delta = event.getDelta();
+        if (delta != null) {
+            // a renamed project is removed under its old name
+            for (IResourceDelta child : delta.getAffectedChildren(IResourceDelta.REMOVED)) {
+                m3Cache.remove(child.getResource().getName());
+            }
+        }
+    }
+    
     public ISet createAstsFromEclipseProject(ISourceLocation root, IBool collectBindings, IBool errorRecovery, IEvaluatorContext ctx) {
         TypeStore store = new TypeStore();
         store.extendStore(ctx.getHeap().getModule("lang::java::m3::AST").getStore());
@@ -52,51 +168,261 @@ public class EclipseJavaCompiler extends org.rascalmpl.library.lang.java.m3.inte
     }
     
     public ISet createM3sFromEclipseProject(ISourceLocation root, IBool errorRecovery, IEvaluatorContext ctx) {
+        TypeStore store = m3Store(ctx);
+        IJavaProject project = getProject(root);
+        ICompilationUnit[] files = getFiles(project);
+        Map<String, CachedM3> cached = cachedM3s(project.getElementName());
+        
+        List<ICompilationUnit> changed = new ArrayList<>();
+        List<ICompilationUnit> unchanged = new ArrayList<>();
+        Map<String, Long> stamps = new HashMap<>();
+        
+        for (ICompilationUnit unit : files) {
+            long stamp = stamp(unit);
+            stamps.put(unit.getHandleIdentifier(), stamp);
+            CachedM3 old = cached.get(unit.getHandleIdentifier());
+            
+            if (old != null && old.isValid(stamp, errorRecovery.getValue())) {
+                unchanged.add(unit);
+            }
+            else {
+                changed.add(unit);
+            }
+        }
+        
+        boolean removed = cached.keySet().retainAll(stamps.keySet());
+        Map<String, CachedM3> fresh = convertToM3s(root, project, changed, stamps, errorRecovery.getValue(), store);
+        
+        if (removed || apiChanged(cached, fresh)) {
+            // the other units may have been resolved against declarations that are gone now
+            fresh.putAll(convertToM3s(root, project, unchanged, stamps, errorRecovery.getValue(), store));
+        }
+        
+        cached.putAll(fresh);
+
+        ISetWriter result = VF.setWriter();
+        for (ICompilationUnit unit : files) {
+            CachedM3 m3 = cached.get(unit.getHandleIdentifier());
+            if (m3 != null) {
+                result.insert(m3.m3);
+            }
+        }
+        return result.done();
+    }
+
+    /**
+     * Calls the consumer with the AST of every unit as soon as it has been converted, without collecting them.
+     */
+    public void streamAstsFromEclipseProject(ISourceLocation root, IBool collectBindings, IValue consumer, IBool errorRecovery, IEvaluatorContext ctx) {
         TypeStore store = new TypeStore();
-        store.extendStore(ctx.getHeap().getModule("lang::java::m3::Core").getStore());
         store.extendStore(ctx.getHeap().getModule("lang::java::m3::AST").getStore());
+        ICallableValue callback = asCallback(consumer, ctx);
 
-        ISetWriter result = VF.setWriter();
         Map<String, ISourceLocation> cache = new HashMap<>();
-        compileAllFiles(root, true, errorRecovery.getValue(), (loc, ast) -> {
-            result.insert(convertToM3(store, cache, loc, ast));
+        compileInBatches(root, collectBindings.getValue(), errorRecovery.getValue(), (source, loc, ast) -> {
+            call(callback, convertToAST(collectBindings, cache, loc, ast, store));
         });
-        return result.done();
+    }
+    
+    /**
+     * Calls the consumer with the M3 of every unit as soon as it has been extracted, without collecting them.
+     */
+    public void streamM3sFromEclipseProject(ISourceLocation root, IValue consumer, IBool errorRecovery, IEvaluatorContext ctx) {
+        TypeStore store = m3Store(ctx);
+        ICallableValue callback = asCallback(consumer, ctx);
+
+        Map<String, ISourceLocation> cache = new HashMap<>();
+        compileInBatches(root, true, errorRecovery.getValue(), (source, loc, ast) -> {
+            call(callback, convertToM3(store, cache, loc, ast));
+        });
+    }
+    
+    /**
+     * Writes the M3 of every unit to a binary value file under target, with the path of the unit and an .m3 extension.
+     */
+    public void writeM3sFromEclipseProject(ISourceLocation root, ISourceLocation target, IBool errorRecovery, IEvaluatorContext ctx) {
+        TypeStore store = m3Store(ctx);
+        URIResolverRegistry reg = URIResolverRegistry.getInstance();
+
+        Map<String, ISourceLocation> cache = new HashMap<>();
+        compileInBatches(root, true, errorRecovery.getValue(), (source, loc, ast) -> {
+            IValue m3 = convertToM3(store, cache, loc, ast);
+            ISourceLocation file = URIUtil.getChildLocation(target, loc.getPath().replaceFirst("^/", "") + ".m3");
+            
+            try (IValueOutputStream out = new IValueOutputStream(reg.getOutputStream(file, false), VF, CompressionRate.Normal)) {
+                out.write(m3);
+            }
+            catch (IOException e) {
+                throw RuntimeExceptionFactory.io(VF.string(e.getMessage()), ctx.getCurrentAST(), ctx.getStackTrace());
+            }
+        });
+    }
+    
+    private ICallableValue asCallback(IValue consumer, IEvaluatorContext ctx) {
+        if (!(consumer instanceof ICallableValue)) {
+            throw RuntimeExceptionFactory.illegalArgument(consumer, ctx.getCurrentAST(), ctx.getStackTrace());
+        }
+        return (ICallableValue) consumer;
+    }
+    
+    private void call(ICallableValue callback, IValue arg) {
+        callback.call(new Type[] { arg.getType() }, new IValue[] { arg }, null);
+    }
+    
+    /**
+     * Compiles the units of the project in batches with a fresh parser each, such that the bindings
+     * of a batch can be released before the next one is parsed. The ASTs are not kept.
+     */
+    private void compileInBatches(ISourceLocation root, boolean collectBindings, boolean errorRecovery, UnitConsumer consumeCompiled) {
+        IJavaProject project = getProject(root);
+        ICompilationUnit[] files = getFiles(project);
         
+        for (int from = 0; from < files.length; from += STREAM_BATCH_SIZE) {
+            ICompilationUnit[] batch = Arrays.copyOfRange(files, from, Math.min(files.length, from + STREAM_BATCH_SIZE));
+            compile(root, project, batch, collectBindings, errorRecovery, consumeCompiled);
+        }
     }
 
     public IValue createAstFromEclipseFile(ISourceLocation file, IBool collectBindings, IBool errorRecovery, IEvaluatorContext ctx) {
         TypeStore store = new TypeStore();
         store.extendStore(ctx.getHeap().getModule("lang::java::m3::AST").getStore());
 
-        CompilationUnit cu = compileOneFile(file, collectBindings.getValue(), errorRecovery.getValue());
+        IJavaProject project = getProject(file);
+        CompilationUnit cu = compileOneFile(findUnit(project, file), project, collectBindings.getValue(), errorRecovery.getValue());
         Map<String, ISourceLocation> cache = new HashMap<>();
         return convertToAST(collectBindings, cache, file, cu, store);
     }
     
     public IValue createM3FromEclipseFile(ISourceLocation file, IBool errorRecovery, IEvaluatorContext ctx) {
+        TypeStore store = m3Store(ctx);
+        IJavaProject project = getProject(file);
+        ICompilationUnit unit = findUnit(project, file);
+        long stamp = stamp(unit);
+        Map<String, CachedM3> cached = cachedM3s(project.getElementName());
+        CachedM3 old = cached.get(unit.getHandleIdentifier());
+        
+        if (old != null && old.isValid(stamp, errorRecovery.getValue())) {
+            return old.m3;
+        }
+
+        CompilationUnit cu = compileOneFile(unit, project, true, errorRecovery.getValue());
+        Map<String, ISourceLocation> cache = new HashMap<>();
+        CachedM3 m3 = new CachedM3(stamp, errorRecovery.getValue(), convertToM3(store, cache, file, cu));
+        
+        if (old != null && !old.api.equals(m3.api)) {
+            // the M3s of the other units may depend on the old declarations of this one
+            cached.clear();
+        }
+        cached.put(unit.getHandleIdentifier(), m3);
+        return m3.m3;
+    }
+    
+    private TypeStore m3Store(IEvaluatorContext ctx) {
         TypeStore store = new TypeStore();
         store.extendStore(ctx.getHeap().getModule("lang::java::m3::Core").getStore());
         store.extendStore(ctx.getHeap().getModule("lang::java::m3::AST").getStore());
-
-        CompilationUnit cu = compileOneFile(file, true, errorRecovery.getValue());
-        Map<String, ISourceLocation> cache = new HashMap<>();
-        return convertToM3(store, cache, file, cu);
+        return store;
+    }
+    
+    /**
+     * Converts the units to M3s on a few threads. Each thread parses its own batch of units, because
+     * the bindings of one batch can not be resolved concurrently.
+     */
+    private Map<String, CachedM3> convertToM3s(ISourceLocation root, IJavaProject project, List<ICompilationUnit> units, Map<String, Long> stamps, boolean errorRecovery, TypeStore store) {
+        Map<String, CachedM3> result = new ConcurrentHashMap<>();
+        
+        if (units.isEmpty()) {
+            return result;
+        }
+        
+        int batches = Math.max(1, Math.min(MAX_BATCHES, units.size() / MIN_BATCH_SIZE));
+        ExecutorService pool = Executors.newFixedThreadPool(batches);
+        
+        try {
+            List<Future<?>> todo = new ArrayList<>();
+            
+            for (int b = 0; b < batches; b++) {
+                List<ICompilationUnit> batch = new ArrayList<>();
+                for (int i = b; i < units.size(); i += batches) {
+                    batch.add(units.get(i));
+                }
+                
+                todo.add(pool.submit(() -> {
+                    Map<String, ISourceLocation> cache = new HashMap<>();
+                    compile(root, project, batch.toArray(new ICompilationUnit[batch.size()]), true, errorRecovery, (source, loc, ast) -> {
+                        String id = source.getHandleIdentifier();
+                        result.put(id, new CachedM3(stamps.get(id), errorRecovery, convertToM3(store, cache, loc, ast)));
+                    });
+                }));
+            }
+            
+            for (Future<?> f : todo) {
+                f.get();
+            }
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            throw RuntimeExceptionFactory.io(VF.string("interrupted while extracting M3 models"), null, null);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        
+        return result;
+    }
+    
+    private static boolean apiChanged(Map<String, CachedM3> cached, Map<String, CachedM3> fresh) {
+        for (Entry<String, CachedM3> e : fresh.entrySet()) {
+            CachedM3 old = cached.get(e.getKey());
+            
+            if (old == null || !old.api.equals(e.getValue().api)) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * @return the modification stamp of the unit, or NULL_STAMP if the unit has unsaved changes
+     */
+    private static long stamp(ICompilationUnit unit) {
+        try {
+            if (unit.getResource() == null || unit.hasUnsavedChanges()) {
+                return IResource.NULL_STAMP;
+            }
+            return unit.getResource().getModificationStamp();
+        }
+        catch (JavaModelException e) {
+            return IResource.NULL_STAMP;
+        }
+    }
+    
+    private interface UnitConsumer {
+        void accept(ICompilationUnit source, ISourceLocation loc, CompilationUnit ast);
     }
     
     private void compileAllFiles(ISourceLocation root, boolean collectBindings, boolean errorRecovery, BiConsumer<ISourceLocation, CompilationUnit> consumeCompiled) {
         IJavaProject project = getProject(root);
+        compile(root, project, getFiles(project), collectBindings, errorRecovery, (source, loc, ast) -> consumeCompiled.accept(loc, ast));
+    }
+    
+    private void compile(ISourceLocation root, IJavaProject project, ICompilationUnit[] units, boolean collectBindings, boolean errorRecovery, UnitConsumer consumeCompiled) {
         ASTParser parser = constructASTParser(collectBindings, project, errorRecovery); 
-        parser.createASTs(getFiles(project), new String[0], new ASTRequestor() {
+        parser.createASTs(units, new String[0], new ASTRequestor() {
             @Override
             public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
-                consumeCompiled.accept(getLocation(root, project, source), ast);
+                consumeCompiled.accept(source, getLocation(root, project, source), ast);
             }
         }, null);
     }
 
-    private CompilationUnit compileOneFile(ISourceLocation file, boolean collectBindings, boolean errorRecovery) {
-        IJavaProject project = getProject(file);
+    private ICompilationUnit findUnit(IJavaProject project, ISourceLocation file) {
         IJavaElement path;
         try {
              path = project.findElement(new Path(file.getPath()));
@@ -110,9 +436,14 @@ public class EclipseJavaCompiler extends org.rascalmpl.library.lang.java.m3.inte
         catch (JavaModelException e) {
              throw RuntimeExceptionFactory.io(VF.string("Could not find " + file), null, null);
         }
+        return (ICompilationUnit) path;
+    }
+
+    private CompilationUnit compileOneFile(ICompilationUnit unit, IJavaProject project, boolean collectBindings, boolean errorRecovery) {
         ASTParser parser = constructASTParser(collectBindings, project, errorRecovery); 
         CompilationUnit[] result = new CompilationUnit[] { null };
-        parser.createASTs(getFiles(project), new String[0], new ASTRequestor() {
+        // only this unit is parsed; the others are read as far as needed to resolve its bindings
+        parser.createASTs(new ICompilationUnit[] { unit }, new String[0], new ASTRequestor() {
             @Override
             public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
                 if (result[0] != null) {
@@ -11,23 +11,23 @@
 package org.rascalmpl.eclipse.library.util;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceVisitor;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.actions.WorkspaceModifyOperation;
-import org.eclipse.ui.progress.IProgressService;
 import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.IRascalResources;
+import org.rascalmpl.eclipse.editor.ReconcilingMarkerCreator;
 import org.rascalmpl.interpreter.IEvaluatorContext;
-import org.rascalmpl.interpreter.control_exceptions.Throw;
 import org.rascalmpl.interpreter.utils.RuntimeExceptionFactory;
 import org.rascalmpl.uri.URIResolverRegistry;
 import org.rascalmpl.uri.URIResourceResolver;
@@ -45,14 +45,7 @@ public class ResourceMarkers {
 	}
 
 	public void removeMessageMarkers(ISourceLocation loc, IEvaluatorContext ctx) {
-	  try { 
-	    loc = URIResolverRegistry.getInstance().logicalToPhysical(loc);
-	  }
-	  catch (IOException e) {
-		  // couldn't resolve it, must be a physical one already.
-	  }
-	  
-	  IResource resource = URIResourceResolver.getResource(loc);
+	  IResource resource = resolve(loc);
 	  if (resource instanceof IFile) {
 	    IFile file = (IFile) resource;
 	    try {
@@ -81,95 +74,90 @@ public class ResourceMarkers {
 	  }
 	}
 
-	private void removeMessageMarkers(ISet markers, IEvaluatorContext ctx) {
+	private static IResource resolve(ISourceLocation loc) {
+		try { 
+			loc = URIResolverRegistry.getInstance().logicalToPhysical(loc);
+		}
+		catch (IOException e) {
+			// couldn't resolve it, must be a physical one already.
+		}
+		return URIResourceResolver.getResource(loc);
+	}
+
+	public void addMessageMarkers(ISet markers, IEvaluatorContext ctx) {
+		// Instead of removing all markers and adding them again, which floods the workspace with marker deltas
+		// for large sets of messages, the markers of every file are reconciled with its messages in one workspace 
+		// operation per file. This runs on the calling thread, it does not need the UI thread.
+		final Map<IFile, ReconcilingMarkerCreator> files = new LinkedHashMap<IFile, ReconcilingMarkerCreator>();
+		List<IResource> resources = new ArrayList<IResource>(markers.size());
+		
 		for (IValue msg : markers) {
 			IConstructor marker = (IConstructor) msg;
 			if (! marker.getType().getName().equals("Message"))
 				throw RuntimeExceptionFactory.illegalArgument(marker, null, null);
-			removeMessageMarkers((ISourceLocation)marker.get(1), ctx);
+			
+			IResource resource = resolve((ISourceLocation) marker.get(1));
+			resources.add(resource);
+			if (resource instanceof IFolder) {
+				// like removeMessageMarkers, a message on a folder clears the markers of its files
+				try {
+					resource.accept(new IResourceVisitor() {
+						@Override
+						public boolean visit(IResource resource) throws CoreException {
+							if (resource instanceof IFile) {
+								IFile file = (IFile) resource;
+								if (!files.containsKey(file)) {
+									files.put(file, new ReconcilingMarkerCreator(file, IRascalResources.ID_RASCAL_MARKER));
+								}
+								return false;
+							}
+
+							return true;
+						}
+					}, IResource.DEPTH_INFINITE, false);
+				} catch (CoreException e) {
+					Activator.log("could not remove markers", e);
+				}
+			}
 		}
-		return;
-	}
-	
-	public void addMessageMarkers(final ISet markers, final IEvaluatorContext ctx) {
-		// we need two locks, one for  the UI and one for the resources
-		// because we know we might need to lock a lot of resources we lock the entire workspace here
-		// and prevent lock starvation where for every file and every ui operation to add a marker we 
-		// need to get a new lock. The resulting code is complex but its fast.
 		
-		final WorkspaceModifyOperation wmo = new WorkspaceModifyOperation(ResourcesPlugin.getWorkspace().getRoot()) {
-			public void execute(IProgressMonitor monitor) {
-				removeMessageMarkers(markers, ctx);
+		Iterator<IResource> resolved = resources.iterator();
+		for (IValue msg : markers) {
+			IConstructor marker = (IConstructor) msg;
+			ISourceLocation loc = (ISourceLocation) marker.get(1);
+			IResource resource = resolved.next();
+			
+			if (resource instanceof IFile) {
+				IFile file = (IFile) resource;
+				ReconcilingMarkerCreator handler = files.get(file);
+				if (handler == null) {
+					handler = new ReconcilingMarkerCreator(file, IRascalResources.ID_RASCAL_MARKER);
+					files.put(file, handler);
+				}
 				
-				for (IValue msg : markers) {
-					IConstructor marker = (IConstructor) msg;
-					if (! marker.getType().getName().equals("Message"))
-					  throw RuntimeExceptionFactory.illegalArgument(marker, null, null);
-					ISourceLocation loc = (ISourceLocation)marker.get(1);
-					try { 
-						loc = URIResolverRegistry.getInstance().logicalToPhysical(loc);
-					}
-					catch (IOException e) {
-						// couldn't resolve it, must be a physical one already.
-					}
-					IResource resource = URIResourceResolver.getResource(loc);
-					if (resource instanceof IFile) {
-					  IFile file = (IFile) resource;
-					  try {
-					    int severity = IMarker.SEVERITY_INFO;
-					    if (marker.getName().equals("error"))
-					      severity = IMarker.SEVERITY_ERROR;
-					    else if (marker.getName().equals("warning"))
-					      severity = IMarker.SEVERITY_WARNING;
-
-					    IString markerMessage = (IString)marker.get(0);
-					    ISourceLocation markerLocation = loc;
+				int severity = IMarker.SEVERITY_INFO;
+				if (marker.getName().equals("error"))
+					severity = IMarker.SEVERITY_ERROR;
+				else if (marker.getName().equals("warning"))
+					severity = IMarker.SEVERITY_WARNING;
 
-					    String[] attributeNames= new String[] {
-					        IMarker.LINE_NUMBER, 
-					        IMarker.CHAR_START, 
-					        IMarker.CHAR_END, 
-					        IMarker.MESSAGE, 
-					        IMarker.PRIORITY, 
-					        IMarker.SEVERITY
-					    };
-
-					    Object[] values= new Object[] {
-					        markerLocation.getBeginLine(), 
-					        markerLocation.getOffset(), 
-					        markerLocation.getOffset() + markerLocation.getLength(), 
-					        markerMessage.getValue(), 
-					        IMarker.PRIORITY_HIGH, 
-					        severity
-					    };
-
-					    IMarker m = file.createMarker(IRascalResources.ID_RASCAL_MARKER);
-					    m.setAttributes(attributeNames, values);
-					  } catch (CoreException ce) {
-					    throw RuntimeExceptionFactory.javaException(ce, null, null);
-					  }
-					}
-				}
+				Map<String,Object> attrs = new HashMap<String,Object>();
+				attrs.put(IMarker.SEVERITY, severity);
+				attrs.put(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
+				
+				int offset = loc.hasOffsetLength() ? loc.getOffset() : -1;
+				int length = loc.hasOffsetLength() ? loc.getLength() : 0;
+				int line = loc.hasLineColumn() ? loc.getBeginLine() : -1;
+				handler.handleSimpleMessage(((IString) marker.get(0)).getValue(), offset, offset + length, -1, -1, line, line, attrs);
 			}
-		};
+		}
 		
-		PlatformUI.getWorkbench().getDisplay().syncExec(new Runnable() {
-			@Override
-			public void run() {
-				IProgressService ips = PlatformUI.getWorkbench().getProgressService();
-				try {
-					ips.run(false, true, wmo);
-				} catch (InvocationTargetException e) {
-					if (e.getTargetException() instanceof Throw) {
-						throw (Throw) e.getTargetException();
-					}
-					else {
-						throw RuntimeExceptionFactory.javaException(e.getTargetException(), null, null);
-					}
-				} catch (InterruptedException e) {
-					Activator.getInstance().logException("??", e);
-				}
+		for (ReconcilingMarkerCreator handler : files.values()) {
+			try {
+				handler.reconcile(null);
+			} catch (CoreException ce) {
+				throw RuntimeExceptionFactory.javaException(ce, null, null);
 			}
-		});
+		}
 	}
 }
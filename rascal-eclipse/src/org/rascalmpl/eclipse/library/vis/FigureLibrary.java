@@ -15,18 +15,29 @@ package org.rascalmpl.eclipse.library.vis;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.PlatformUI;
 import org.rascalmpl.interpreter.IEvaluatorContext;
 import org.rascalmpl.eclipse.library.vis.swt.FigureExecutionEnvironment;
+import org.rascalmpl.eclipse.library.vis.swt.HeadlessFigureEnvironment;
 import org.rascalmpl.eclipse.library.vis.util.vector.BoundingBox;
 import org.rascalmpl.uri.URIResolverRegistry;
 import org.rascalmpl.value.IConstructor;
 import org.rascalmpl.value.IInteger;
+import org.rascalmpl.value.IList;
+import org.rascalmpl.value.IReal;
 import org.rascalmpl.value.ISourceLocation;
 import org.rascalmpl.value.IString;
+import org.rascalmpl.value.ITuple;
+import org.rascalmpl.value.IValue;
 import org.rascalmpl.value.IValueFactory;
 
 public class FigureLibrary {
@@ -99,5 +110,122 @@ public class FigureLibrary {
 		
 	}
 	
-
+	
+	/**
+	 * Renders the figure in a view of the given size and draws the whole view a number of times.
+	 * 
+	 * @return the average time of a frame in milliseconds
+	 */
+	public IReal measureFrameTimeActual(final IConstructor cfig, final IInteger width, final IInteger height, final IInteger frames, final IEvaluatorContext ctx) {
+		final long[] result = new long[1];
+		
+		PlatformUI.getWorkbench().getDisplay().syncExec(new Runnable() {
+			@Override
+			public void run() {
+				final Shell shell = new Shell(PlatformUI.getWorkbench().getDisplay());
+				final FigureExecutionEnvironment env = new FigureExecutionEnvironment(shell, cfig, ctx);
+				try {
+					Rectangle r = shell.computeTrim(0, 0, width.intValue(), height.intValue());
+					shell.setBounds(r);
+					env.setSize(width.intValue(), height.intValue());
+					shell.open();
+					result[0] = env.getRootApplet().measureFrameTime(frames.intValue());
+				}
+				finally {
+					env.dispose();
+					shell.close();
+					shell.dispose();
+				}
+			}
+		});
+		
+		return values.real(result[0] / 1000000.0);
+	}
+	
+	/**
+	 * Writes the figure as SVG while it is drawn, without a display and without an image of the figure in memory.
+	 */
+	public void renderSaveSVGActual(IConstructor cfig, IInteger width, IInteger height, ISourceLocation loc, IEvaluatorContext ctx) {
+		HeadlessFigureEnvironment env = new HeadlessFigureEnvironment(cfig, ctx);
+		try (OutputStream out = URIResolverRegistry.getInstance().getOutputStream(loc, false)) {
+			env.saveSVG(width.intValue(), height.intValue(), out);
+		}
+		catch (IOException e) {
+			ctx.getStdErr().printf("Could not save figure " + e.getMessage() + "\n");
+		}
+		finally {
+			env.dispose();
+		}
+	}
+	
+	/**
+	 * Draws the figures with Java2D on worker threads, without a display. The callbacks of the figures
+	 * are run on the calling thread, which waits until all figures are written.
+	 */
+	public void renderSaveHeadlessActual(final IList figures, final IInteger width, final IInteger height, final IEvaluatorContext ctx) {
+		if(figures.isEmpty()){
+			return;
+		}
+		
+		final Runnable done = new Runnable() {
+			@Override
+			public void run() { }
+		};
+		final BlockingQueue<Runnable> callbacks = new LinkedBlockingQueue<Runnable>();
+		final Executor rascalThread = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				callbacks.add(command);
+			}
+		};
+		final AtomicInteger pending = new AtomicInteger(figures.length());
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(figures.length(), Runtime.getRuntime().availableProcessors()));
+		
+		try {
+			for(IValue v : figures){
+				final IConstructor cfig = (IConstructor) ((ITuple) v).get(0);
+				final ISourceLocation loc = (ISourceLocation) ((ITuple) v).get(1);
+				
+				pool.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							renderHeadless(cfig, width.intValue(), height.intValue(), loc, rascalThread, ctx);
+						}
+						finally {
+							if(pending.decrementAndGet() == 0){
+								callbacks.add(done);
+							}
+						}
+					}
+				});
+			}
+			
+			for(Runnable r = callbacks.take() ; r != done ; r = callbacks.take()){
+				r.run();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	private void renderHeadless(IConstructor cfig, int width, int height, ISourceLocation loc, Executor rascalThread, IEvaluatorContext ctx) {
+		HeadlessFigureEnvironment env = null;
+		try (OutputStream out = URIResolverRegistry.getInstance().getOutputStream(loc, false)) {
+			env = new HeadlessFigureEnvironment(cfig, ctx, rascalThread);
+			env.savePNG(width, height, out);
+		}
+		catch (IOException | RuntimeException e) {
+			ctx.getStdErr().printf("Could not save figure to %s: %s\n", loc, e.getMessage());
+		}
+		finally {
+			if(env != null){
+				env.dispose();
+			}
+		}
+	}
 }
@@ -43,6 +43,7 @@ import static org.rascalmpl.eclipse.library.vis.util.vector.Dimension.X;
 import static org.rascalmpl.eclipse.library.vis.util.vector.Dimension.Y;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.rascalmpl.eclipse.library.vis.figure.interaction.MouseOver;
 import org.rascalmpl.eclipse.library.vis.graphics.FontStyle;
@@ -52,6 +53,7 @@ import org.rascalmpl.eclipse.library.vis.properties.PropertyManager;
 import org.rascalmpl.eclipse.library.vis.swt.ICallbackEnv;
 import org.rascalmpl.eclipse.library.vis.swt.IFigureConstructionEnv;
 import org.rascalmpl.eclipse.library.vis.swt.SWTFontsAndColors;
+import org.rascalmpl.eclipse.library.vis.swt.applet.FigureHitIndex;
 import org.rascalmpl.eclipse.library.vis.swt.applet.IHasSWTElement;
 import org.rascalmpl.eclipse.library.vis.util.NameResolver;
 import org.rascalmpl.eclipse.library.vis.util.vector.BoundingBox;
@@ -92,7 +94,8 @@ public abstract class Figure implements Comparable<Figure> {
 	public static final Type[] noTypes = new Type[0];
 	public static final IValue[] noArgs = new IValue[0];
 	
-	public static int sequencer = 0; // to impose arbitrary ordering on figures
+	// to impose arbitrary ordering on figures, which may be constructed by several threads (see HeadlessFigureEnvironment)
+	private static final AtomicInteger sequencer = new AtomicInteger();
 	@SuppressWarnings("unused")
 	private static final boolean debug = false;
 	
@@ -107,6 +110,7 @@ public abstract class Figure implements Comparable<Figure> {
 	public Coordinate localLocation; // the location of the left, top corner of this figure relative to the parent location
 	public Coordinate globalLocation; //
 	public TwoDimensional<Boolean> resizable;
+	private Rectangle drawExtent; // the area drawn by this figure and its children, see updateDrawExtents
 
 	public Figure(PropertyManager properties) {
 		this.prop = properties;
@@ -115,8 +119,7 @@ public abstract class Figure implements Comparable<Figure> {
 		localLocation = new Coordinate();
 		globalLocation = new Coordinate();
 		resizable = new TwoDimensional<Boolean>(true, true);
-		sequenceNr = sequencer;
-		sequencer++;
+		sequenceNr = sequencer.getAndIncrement();
 	}
 	
 	public final void registerIds(IFigureConstructionEnv env,NameResolver resolver){
@@ -291,11 +294,85 @@ public abstract class Figure implements Comparable<Figure> {
 	public void drawChildren(Coordinate zoom, GraphicsContext gc,
 			Rectangle part, List<IHasSWTElement> visibleSWTElements) {
 		for(Figure f : children){
-			//if(f.overlapsWith(part)){
+			if(f.mayBeVisibleIn(part)){
 				Rectangle npart = f.isContainedIn(part) ? null : part;
 				f.draw(zoom, gc, npart, visibleSWTElements);
-			//}
+			}
+		}
+	}
+	
+	/*
+	 * Culling: a figure and its children are not drawn when the area they draw on lies
+	 * outside the part that is drawn. This area includes the outer half of the lines and the
+	 * shadow, and figures which draw outside their own bounds (such as edges) report no area,
+	 * which means they are always drawn. The areas are computed by updateDrawExtents after
+	 * every layout and whenever figures have moved, see ViewPortHandler.
+	 */
+	
+	/**
+	 * @return the area this figure draws on, without its children, or null if it may draw outside its bounds
+	 */
+	public Rectangle getDrawBounds(){
+		double hlw = 0.5 * prop.getReal(LINE_WIDTH) + 1; // and a pixel for anti-aliasing
+		double left = globalLocation.getX() - hlw;
+		double top = globalLocation.getY() - hlw;
+		double right = globalLocation.getX() + size.getX() + hlw;
+		double bottom = globalLocation.getY() + size.getY() + hlw;
+		if(prop.getBool(SHADOW)){
+			double sx = prop.getReal(HSHADOWPOS);
+			double sy = prop.getReal(VSHADOWPOS);
+			left = Math.min(left, left + sx);
+			right = Math.max(right, right + sx);
+			top = Math.min(top, top + sy);
+			bottom = Math.max(bottom, bottom + sy);
+		}
+		return new Rectangle(left, top, right - left, bottom - top);
+	}
+	
+	/**
+	 * Computes the area drawn by this figure and all its children.
+	 */
+	public void updateDrawExtents(){
+		Rectangle own = getDrawBounds();
+		boolean known = own != null;
+		double left = 0, top = 0, right = 0, bottom = 0;
+		if(known){
+			left = own.getLocation().getX();
+			top = own.getLocation().getY();
+			right = own.getRightDown().getX();
+			bottom = own.getRightDown().getY();
+		}
+		for(Figure child : children){
+			child.updateDrawExtents();
+			Rectangle r = child.drawExtent;
+			if(r == null){
+				known = known && confinesChildren();
+			} else if(known){
+				left = Math.min(left, r.getLocation().getX());
+				top = Math.min(top, r.getLocation().getY());
+				right = Math.max(right, r.getRightDown().getX());
+				bottom = Math.max(bottom, r.getRightDown().getY());
+			}
 		}
+		drawExtent = known ? new Rectangle(left, top, right - left, bottom - top) : null;
+	}
+	
+	/**
+	 * @return true if children which may draw outside their own bounds still draw inside the bounds of this figure
+	 */
+	protected boolean confinesChildren(){
+		return false;
+	}
+	
+	/**
+	 * @return the area drawn by this figure and its children at the last {@link #updateDrawExtents()}, or null if unknown
+	 */
+	public Rectangle getDrawExtent(){
+		return drawExtent;
+	}
+	
+	public boolean mayBeVisibleIn(Rectangle part){
+		return part == null || drawExtent == null || drawExtent.overlapsWith(part);
 	}
 
 	public void beforeDraw(Coordinate zoom) {} 
@@ -347,6 +424,35 @@ public abstract class Figure implements Comparable<Figure> {
 		}
 	}
 
+	/**
+	 * Reports the figures which handle input to the index in the order of getFiguresUnderMouse,
+	 * as if the mouse were inside all of them.
+	 */
+	public void getInputFigures(FigureHitIndex.Builder index){
+		index.enter(this);
+		for(Figure child : children){
+			child.getInputFigures(index);
+		}
+		if(handlesInput()){
+			index.add();
+		}
+		index.leave();
+	}
+
+	/**
+	 * @return a rectangle which contains every coordinate for which mouseInside holds, or null if there is none
+	 */
+	public Rectangle getHitBounds(){
+		return getRectangle();
+	}
+
+	/**
+	 * An extra check on top of mouseInside before this figure itself counts as being under the mouse.
+	 */
+	public boolean shapeContains(Coordinate c){
+		return true;
+	}
+
 	public boolean handlesInput(){
 		return prop.hasHandlerProperties();
 	}
@@ -18,6 +18,7 @@ import org.rascalmpl.eclipse.library.vis.figure.interaction.MouseOver;
 import org.rascalmpl.eclipse.library.vis.graphics.GraphicsContext;
 import org.rascalmpl.eclipse.library.vis.properties.PropertyManager;
 import org.rascalmpl.eclipse.library.vis.swt.IFigureConstructionEnv;
+import org.rascalmpl.eclipse.library.vis.swt.applet.FigureHitIndex;
 import org.rascalmpl.eclipse.library.vis.swt.applet.IHasSWTElement;
 import org.rascalmpl.eclipse.library.vis.util.NameResolver;
 import org.rascalmpl.eclipse.library.vis.util.vector.Coordinate;
@@ -110,5 +111,15 @@ public class Overlap extends LayoutProxy{
 			result.add(this);
 		}
 	}
+
+	@Override
+	public void getInputFigures(FigureHitIndex.Builder index){
+		index.enter(this);
+		innerFig.getInputFigures(index);
+		if(handlesInput()){
+			index.add();
+		}
+		index.leave();
+	}
 	
 }
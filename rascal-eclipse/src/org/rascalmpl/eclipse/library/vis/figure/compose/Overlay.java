@@ -41,6 +41,7 @@ import org.rascalmpl.eclipse.library.vis.graphics.Interpolation;
 import org.rascalmpl.eclipse.library.vis.graphics.TypedPoint;
 import org.rascalmpl.eclipse.library.vis.properties.PropertyManager;
 import org.rascalmpl.eclipse.library.vis.swt.IFigureConstructionEnv;
+import org.rascalmpl.eclipse.library.vis.swt.applet.FigureHitIndex;
 import org.rascalmpl.eclipse.library.vis.swt.applet.IHasSWTElement;
 import org.rascalmpl.eclipse.library.vis.util.FigureMath;
 import org.rascalmpl.eclipse.library.vis.util.NameResolver;
@@ -103,11 +104,8 @@ public class Overlay extends Compose{
 		if(!mouseInside(c)){
 			return;
 		}
-		if(handlesInput()){
-			Point2D.Double d = new Point2D.Double(c.getX(), c.getY());
-			if(makePath().contains(d)){
-				result.add(this);
-			}
+		if(handlesInput() && shapeContains(c)){
+			result.add(this);
 		}
 		for(int i = children.length - 1 ; i >= 0 ; i--){
 			children[i].getFiguresUnderMouse(c, result);
@@ -115,6 +113,29 @@ public class Overlay extends Compose{
 		
 	}
 
+	@Override
+	public void getInputFigures(FigureHitIndex.Builder index){
+		index.enter(this);
+		if(handlesInput()){
+			index.add();
+		}
+		for(int i = children.length - 1 ; i >= 0 ; i--){
+			children[i].getInputFigures(index);
+		}
+		index.leave();
+	}
+
+	@Override
+	public Rectangle getDrawBounds(){
+		// the connecting shape may curve outside the bounds
+		return null;
+	}
+
+	@Override
+	public boolean shapeContains(Coordinate c){
+		return makePath().contains(new Point2D.Double(c.getX(), c.getY()));
+	}
+
 	
 	
 	
@@ -133,17 +154,18 @@ public class Overlay extends Compose{
     				children[i].globalLocation.getY()   + children[i].prop.getReal(VCONNECT)  * children[i].size.getY(),TypedPoint.kind.CURVED));
 	        	}
 	        	
-	        		Interpolation.solve(res, true);
-	        		p.moveTo(Interpolation.P0[0].x, Interpolation.P0[0].y);
-	        		int n = Interpolation.P0.length;
+	        		Interpolation curve = new Interpolation();
+	        		curve.solve(res, true);
+	        		p.moveTo(curve.P0[0].x, curve.P0[0].y);
+	        		int n = curve.P0.length;
 	        		for (int i = 0; i < n; i++)
 	        			p.curveTo(
-	        			Interpolation.P1[i].x,
-	        					Interpolation.P1[i].y,
-	        					Interpolation.P2[i].x,
-	        					 Interpolation.P2[i].y,
-	        					 Interpolation.P3[i].x,
-	        					Interpolation.P3[i].y);
+	        			curve.P1[i].x,
+	        					curve.P1[i].y,
+	        					curve.P2[i].x,
+	        					 curve.P2[i].y,
+	        					 curve.P3[i].x,
+	        					curve.P3[i].y);
 	        	} else{
 	        		p.moveTo(children[0].globalLocation.getX() + children[0].prop.getReal(HCONNECT) * children[0].size.getX(),
 		    				children[0].globalLocation.getY()   + children[0].prop.getReal(VCONNECT)  * children[0].size.getY());
@@ -96,8 +96,8 @@ public class Pack extends WidthDependsOnHeight {
 			return;
 		}
 		oldSize.set(size);
-		Node.hgap = prop.getReal(Properties.HGAP);
-		Node.vgap = prop.getReal(Properties.VGAP);
+		double hgap = prop.getReal(Properties.HGAP);
+		double vgap = prop.getReal(Properties.VGAP);
 		for(Figure fig : children){
 			fig.size.set(fig.minSize);
 		}
@@ -134,7 +134,7 @@ public class Pack extends WidthDependsOnHeight {
 			//size.setWidth(size.getX() * 1.2f);
 			//size.setHeight(size.getY() * 1.2f);
 	
-			root = new Node(0, 0, size.getX(), size.getY());
+			root = new Node(0, 0, size.getX(), size.getY(), hgap, vgap);
 			
 			for(Figure fig : children){
 				Node nd = root.insert(fig);
@@ -158,8 +158,9 @@ public class Pack extends WidthDependsOnHeight {
 }
 
 class Node {
-	static double hgap;
-	static double vgap;
+	// per node instead of static, such that packs can be laid out by several threads at once
+	final double hgap;
+	final double vgap;
 	Node lnode;
 	Node rnode;
 	Figure figure;
@@ -168,7 +169,9 @@ class Node {
 	double right;
 	double bottom;
 	
-	Node (double left, double top, double right, double bottom){
+	Node (double left, double top, double right, double bottom, double hgap, double vgap){
+		this.hgap = hgap;
+		this.vgap = vgap;
 		lnode  = rnode = null;
 		figure = null;
 		this.left = left;
@@ -230,12 +233,12 @@ class Node {
 
         if(dw > dh) {
         	//if(Pack.debug)System.err.printf("%s: case dw > dh\n", id);
-        	lnode = new Node(left,                 top, left + fig.minSize.getX() + hgap, bottom);
-        	rnode = new Node(left + fig.minSize.getX() + hgap, top, right,                bottom);
+        	lnode = new Node(left,                 top, left + fig.minSize.getX() + hgap, bottom, hgap, vgap);
+        	rnode = new Node(left + fig.minSize.getX() + hgap, top, right,                bottom, hgap, vgap);
         } else {
         	//if(Pack.debug)System.err.printf("%s: case dw <= dh\n", id);
-           	lnode = new Node(left, top,                  right, top + fig.minSize.getY() + vgap);
-        	rnode = new Node(left, top + fig.minSize.getY() + vgap, right, bottom);
+           	lnode = new Node(left, top,                  right, top + fig.minSize.getY() + vgap, hgap, vgap);
+        	rnode = new Node(left, top + fig.minSize.getY() + vgap, right, bottom, hgap, vgap);
         }
         
         // insert the figure in left most child
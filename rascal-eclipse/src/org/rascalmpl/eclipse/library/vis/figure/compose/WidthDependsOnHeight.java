@@ -16,6 +16,7 @@ import org.rascalmpl.eclipse.library.vis.swt.applet.IHasSWTElement;
 import org.rascalmpl.eclipse.library.vis.util.vector.BoundingBox;
 import org.rascalmpl.eclipse.library.vis.util.vector.Coordinate;
 import org.rascalmpl.eclipse.library.vis.util.vector.Dimension;
+import org.rascalmpl.eclipse.library.vis.util.vector.Rectangle;
 
 public abstract class WidthDependsOnHeight extends Compose{
 
@@ -45,6 +46,11 @@ public abstract class WidthDependsOnHeight extends Compose{
 		return c.getX() >= globalLocation.getX() && c.getX() <= globalLocation.getX() + realSize.getX()
 				&& c.getY() >= globalLocation.getY() && c.getY() <= globalLocation.getY()+ realSize.getY();
 	}
+
+	@Override
+	public Rectangle getHitBounds() {
+		return new Rectangle(globalLocation, realSize);
+	}
 	
 	@Override
 	public void computeMinSize() {
@@ -1543,4 +1543,10 @@ public class LayeredGraph extends Figure {
 		for(LinkedList<LayeredGraphEdge> layerLabels : labels)
 			LayeredGraphEdge.optimizeLabels(layerLabels);
 	}
-}
\ No newline at end of file
+
+	@Override
+	protected boolean confinesChildren() {
+		// the edges are drawn between the nodes
+		return true;
+	}
+}
@@ -579,5 +579,10 @@ public class LayeredGraphEdge extends Figure {
 	public Figure getLabel() {
 		return label;
 	}
-}
 
+	@Override
+	public Rectangle getDrawBounds() {
+		// the edge is drawn between its nodes, outside its own bounds
+		return null;
+	}
+}
@@ -562,6 +562,11 @@ public class LayeredGraphNode extends Figure /*implements Comparable<LayeredGrap
 		if(figure!=null) return figure.mouseInside(c);
 		else return false;
 	}
+
+	@Override
+	public Rectangle getHitBounds() {
+		return figure != null ? figure.getHitBounds() : null;
+	}
 	
 	@Override
 	public void resizeElement(Rectangle view) {
@@ -13,11 +13,16 @@ package org.rascalmpl.eclipse.library.vis.figure.graph.spring;
 
 import static org.rascalmpl.eclipse.library.vis.properties.Properties.ID;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.rascalmpl.interpreter.utils.RuntimeExceptionFactory;
 import org.rascalmpl.eclipse.library.vis.figure.Figure;
 import org.rascalmpl.eclipse.library.vis.figure.FigureFactory;
@@ -27,6 +32,7 @@ import org.rascalmpl.eclipse.library.vis.properties.PropertyManager;
 import org.rascalmpl.eclipse.library.vis.swt.Animation;
 import org.rascalmpl.eclipse.library.vis.swt.ICallbackEnv;
 import org.rascalmpl.eclipse.library.vis.swt.IFigureConstructionEnv;
+import org.rascalmpl.eclipse.library.vis.swt.applet.FigureSWTApplet;
 import org.rascalmpl.eclipse.library.vis.swt.applet.IHasSWTElement;
 import org.rascalmpl.eclipse.library.vis.util.vector.Rectangle;
 import org.rascalmpl.eclipse.library.vis.util.vector.Vector2D;
@@ -54,6 +60,11 @@ import org.rascalmpl.value.IValue;
  * 		Springer-Verlag, 1995.
  * 
  *  Spring layout is activated by the property: hint("spring")
+ *  
+ *  The repulsive forces between all nodes are approximated with a quadtree, see {@link SpringQuadTree}. 
+ *  The property springTheta sets its opening angle, 0 computes the exact forces. With the property 
+ *  springPrecompute(true) the layout is computed in the background before it is shown, instead of 
+ *  being animated.
  * 
  * @author paulk
  * 
@@ -67,12 +78,19 @@ public class SpringGraph extends Figure {
 	protected int temperature;
 	private static boolean debug = false;
 	private final ICallbackEnv env;
+	private final FigureSWTApplet applet;
 	private Animation currentAnimation;
+	private Job layoutJob;
+	
+	// Valid during one round of the layout
+	private SpringQuadTree repulsion;
+	private Vector2D roundBaryCenter;
 
 	public SpringGraph(IFigureConstructionEnv fpa, PropertyManager properties, IList nodes,	IList edges) {
 		super(properties);
 		this.nodes = new ArrayList<SpringGraphNode>();
 		this.env = fpa.getCallBackEnv();
+		this.applet = fpa.getSWTParent();
 		registered = new HashMap<String,SpringGraphNode>();
 		for(IValue v : nodes){
 			IConstructor c = (IConstructor) v;
@@ -131,6 +149,7 @@ public class SpringGraph extends Figure {
 	public double SKEW = 1.0;
 	public double ROTATION = 1.0;
 	public double GRAVITY = 0.20;				// Set in computeMinSize.
+	public double THETA = 0.8;					// Set in computeMinSize.
 	public static int MAX_ROUNDS = 400;
 
 	public void printValues() {
@@ -156,12 +175,54 @@ public class SpringGraph extends Figure {
 		double cx = 0;
 		double cy = 0;
 		for (SpringGraphNode n : nodes){
-			cx += n.getCenterX();
-			cy += n.getCenterY();
+			cx += n.x;
+			cy += n.y;
 		}
 		return new Vector2D(cx / nodes.size(), cy / nodes.size());
 	}
 	
+	/**
+	 * The barycenter at the start of the current round, such that a round does not compute it for every node.
+	 */
+	public Vector2D getRoundBaryCenter(){
+		return roundBaryCenter != null ? roundBaryCenter : getBaryCenter();
+	}
+	
+	SpringQuadTree getRepulsion(){
+		if(repulsion == null){
+			repulsion = new SpringQuadTree(this, nodes, THETA);
+		}
+		return repulsion;
+	}
+	
+	/**
+	 * One step for all nodes, in the given order.
+	 */
+	void round(List<SpringGraphNode> order){
+		roundBaryCenter = getBaryCenter();
+		repulsion = new SpringQuadTree(this, nodes, THETA);
+		
+		for (SpringGraphNode nd : order){
+			nd.step();		
+		}
+		
+		repulsion = null;
+		roundBaryCenter = null;
+	}
+	
+	boolean layoutDone(int rounds){
+		return rounds >= MAX_ROUNDS || globalTemperature() <= MIN_GLOBAL_TEMPERATURE;
+	}
+	
+	// The global temperature is the sum of all node temperatures.
+	public double globalTemperature(){
+		double result = 0;
+		for (SpringGraphNode n : nodes){
+			result += n.temperature;
+		}
+		return result;
+	}
+	
 	 @Override
 	 public void computeMinSize(){
 		 double hsize = prop.getReal(Properties.HSIZE);
@@ -177,6 +238,9 @@ public class SpringGraph extends Figure {
 		 double hgap = prop.getReal(Properties.HGAP);
 		 double vgap = prop.getReal(Properties.VGAP);
 
+		 // a previous layout may still be running a round on the nodes
+		 stopLayoutJob();
+		 
 		 double mass = 0;
 		 double radius = 0;
 		 for (SpringGraphNode nd : nodes){
@@ -192,9 +256,115 @@ public class SpringGraph extends Figure {
 		 EDGE_LENGTH_2 = EDGE_LENGTH * EDGE_LENGTH;
 		 RAND_DISTURB = EDGE_LENGTH/4;
 		 MIN_GLOBAL_TEMPERATURE = 0.005 * MAX_LOCAL_TEMPERATURE/ (1 +nodes.size());
+		 THETA = prop.getReal(Properties.SPRING_THETA);
 		 
-		 currentAnimation = new AnimateForces();
+		 if(applet == null){
+			 // drawn without a display, see HeadlessFigureEnvironment, so there is nothing to animate
+			 currentAnimation = null;
+			 runRounds(new ArrayList<SpringGraphNode>(nodes), null);
+			 for(SpringGraphNode nd : nodes){
+				 nd.showCenter(nd.x, nd.y);
+			 }
+		 } else if(prop.getBool(Properties.SPRING_PRECOMPUTE)){
+			 currentAnimation = null;
+			 precomputeLayout();
+		 } else {
+			 currentAnimation = new AnimateForces();
+		 }
 	 }
+	 
+	/**
+	 * Runs rounds until the layout is done, without placing the figures of the nodes.
+	 * 
+	 * @return the number of rounds, or -1 if the monitor was cancelled
+	 */
+	private int runRounds(List<SpringGraphNode> order, IProgressMonitor monitor){
+		int rounds = 0;
+		while(!layoutDone(rounds)){
+			if(monitor != null && monitor.isCanceled()){
+				return -1;
+			}
+			Collections.shuffle(order);
+			round(order);
+			for(SpringGraphNode nd : order){
+				nd.constrainCenter(nd.x, nd.y);
+			}
+			rounds++;
+		}
+		return rounds;
+	}
+	
+	/**
+	 * Runs all rounds of the layout in a job, and shows the result when it is done. The job only changes
+	 * the layout positions of the nodes; their figures are drawn at their shown positions, which are
+	 * set from a copy of the result on the user interface thread.
+	 */
+	private void precomputeLayout(){
+		final List<SpringGraphNode> order = new ArrayList<SpringGraphNode>(nodes);
+		final PrintWriter out = env.getRascalContext().getStdOut();
+		
+		layoutJob = new Job("Spring layout") {
+			@Override
+			protected IStatus run(final IProgressMonitor monitor) {
+				long start = System.currentTimeMillis();
+				final int done = runRounds(order, monitor);
+				if(done < 0){
+					return Status.CANCEL_STATUS;
+				}
+				final long time = System.currentTimeMillis() - start;
+				
+				final double[] centers = new double[2 * order.size()];
+				for(int i = 0; i < order.size(); i++){
+					centers[2 * i] = order.get(i).x;
+					centers[2 * i + 1] = order.get(i).y;
+				}
+				
+				if(applet.isDisposed()){
+					return Status.OK_STATUS;
+				}
+				
+				final Job job = this;
+				applet.getDisplay().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if(layoutJob != job || monitor.isCanceled() || applet.isDisposed()){
+							// a newer layout replaced this one
+							return;
+						}
+						for(int i = 0; i < order.size(); i++){
+							order.get(i).showCenter(centers[2 * i], centers[2 * i + 1]);
+						}
+						for(SpringGraphNode nd : nodes){
+							nd.setElementPosition();
+						}
+						out.printf("Spring layout of %d nodes: %d rounds in %d ms\n", nodes.size(), done, time);
+						out.flush();
+						applet.requestRedraw(SpringGraph.this);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+		};
+		
+		layoutJob.setSystem(true);
+		layoutJob.schedule();
+	}
+	
+	/**
+	 * Cancels the layout job, and waits until it has finished its current round.
+	 */
+	private void stopLayoutJob(){
+		if(layoutJob == null){
+			return;
+		}
+		layoutJob.cancel();
+		try {
+			layoutJob.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		layoutJob = null;
+	}
 
 	@Override
 	public void drawElement(GraphicsContext gc, List<IHasSWTElement> visibleSWTElements){
@@ -212,6 +382,7 @@ public class SpringGraph extends Figure {
 	 @Override
 	public void destroyElement(IFigureConstructionEnv env) { 
 		 env.getCallBackEnv().unregisterAnimation(currentAnimation);
+		 stopLayoutJob();
 	 }
 
 	class AnimateForces implements Animation {
@@ -222,9 +393,14 @@ public class SpringGraph extends Figure {
 			printValues();
 		}
 
+		@Override
+		public Figure getAnimatedFigure() {
+			return SpringGraph.this;
+		}
+
 		@Override
 		public boolean moreFrames() {
-			return iteration < MAX_ROUNDS && globalTemperature() > MIN_GLOBAL_TEMPERATURE;
+			return !layoutDone(iteration);
 		}
 
 		@Override
@@ -232,26 +408,21 @@ public class SpringGraph extends Figure {
 			if(debug)System.err.println("\nITERATION: " + iteration + ", total temp: "+ globalTemperature());
 			Collections.shuffle(nodes);
 			
-			for (SpringGraphNode nd : nodes){
-				nd.step();		
-			}
+			round(nodes);
 			
 			for(SpringGraphNode nd : nodes){
-				nd.placeCenter(nd.getCenterX(), nd.getCenterY());
+				nd.placeCenter(nd.x, nd.y);
 			}	
 			
 			iteration++;
 		}
-		
-		// The global temperature is the sum of all node temperatures.
-		public double globalTemperature(){
-			double result = 0;
-			for (SpringGraphNode n : nodes){
-				result += n.temperature;
-			}
-			return result;
-		}
 	}
 
 	
+
+	@Override
+	protected boolean confinesChildren() {
+		// the edges are drawn between the nodes
+		return true;
+	}
 }
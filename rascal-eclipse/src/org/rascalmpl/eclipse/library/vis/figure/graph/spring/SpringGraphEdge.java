@@ -148,4 +148,9 @@ public class SpringGraphEdge extends Figure {
 		
 	}
 
+	@Override
+	public Rectangle getDrawBounds() {
+		// the edge is drawn between its nodes, outside its own bounds
+		return null;
+	}
 }
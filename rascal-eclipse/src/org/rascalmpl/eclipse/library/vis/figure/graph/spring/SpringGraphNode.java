@@ -30,8 +30,11 @@ public class SpringGraphNode extends Figure {
 	private final SpringGraph G;
 	protected final String name;
 	protected final Figure figure;
-	double x;	// Coordinates of center of node
+	double x;	// Coordinates of center of node during the layout
 	double y;
+	// Coordinates of center of node as drawn, which a layout in the background (see SpringGraph.precomputeLayout) does not touch
+	private double shownX;
+	private double shownY;
 
 	double temperature;
 	double skew;
@@ -58,6 +61,7 @@ public class SpringGraphNode extends Figure {
 		temperature = G.MAX_LOCAL_TEMPERATURE;
 		skew = 0;
 		oldImpulse = new Vector2D(0, 0);
+		showCenter(x, y);
 	}
 
 	public void addIn(SpringGraphNode n) {
@@ -83,13 +87,22 @@ public class SpringGraphNode extends Figure {
 	}
 
 	protected double getCenterX() {
-		return x;
+		return shownX;
 	}
 	
 	protected double getCenterY() {
-		return y;
+		return shownY;
 	}
 	
+	// Draw the node at the given center from now on, without updating the figure
+	
+	void showCenter(double newX, double newY) {
+		shownX = newX;
+		shownY = newY;
+	}
+	
+	// The center during the layout
+	
 	public Vector2D getCenter() {
 		return new Vector2D(x, y);
 	}
@@ -104,6 +117,14 @@ public class SpringGraphNode extends Figure {
 	// Place node after one round, update all dependent positions
 	
 	protected void placeCenter(double newX, double newY) {
+		constrainCenter(newX, newY);
+		showCenter(x, y);
+		setElementPosition();
+	}
+	
+	// Keep the node inside the graph, without updating the figure
+	
+	protected void constrainCenter(double newX, double newY) {
 		double w2 = width()/2;
 		double h2 = height()/2;
 		if (newX <= w2){
@@ -134,8 +155,6 @@ public class SpringGraphNode extends Figure {
 				oldImpulse.setY(-oldImpulse.getY());
 		} else
 			this.y = newY; 
-		
-		setElementPosition();
 	}
 	
 	public double distance(SpringGraphNode other){
@@ -173,8 +192,8 @@ public class SpringGraphNode extends Figure {
 	
 	void setElementPosition(){
 		figure.localLocation.set(
-				localLocation.getX() + x - figure.minSize.getX() / 2,
-				localLocation.getY() + y - figure.minSize.getY() / 2);
+				localLocation.getX() + shownX - figure.minSize.getX() / 2,
+				localLocation.getY() + shownY - figure.minSize.getY() / 2);
 		
 		figure.globalLocation.set(globalLocation);
 		figure.globalLocation.set(figure.localLocation);
@@ -284,12 +303,8 @@ public class SpringGraphNode extends Figure {
 		// Add a random force and the gravitational force
 		Vector2D resultForce = gravitionalForce().add(randomForce());
 
-		// Repulsive forces
-		for (SpringGraphNode otherNode : G.nodes) {
-			if (otherNode != this) {
-				resultForce = resultForce.add(repulsiveForce(otherNode));
-			}
-		}
+		// Repulsive forces, approximated by the quadtree of this round
+		resultForce = resultForce.add(G.getRepulsion().repulsiveForce(this));
 
 		// Attractive forces
 		for (SpringGraphNode otherNode : in) {
@@ -330,7 +345,7 @@ public class SpringGraphNode extends Figure {
 	 * G = (barycenter - thisVector) * Mass * Gravity
 	 */
 	public Vector2D gravitionalForce() {
-		Vector2D barycenter = new Vector2D(G.getBaryCenter());
+		Vector2D barycenter = new Vector2D(G.getRoundBaryCenter());
 		Vector2D thisVector = new Vector2D(getCenter());
 		return barycenter.sub(thisVector).mul(getMass()).mul(G.GRAVITY);
 	}
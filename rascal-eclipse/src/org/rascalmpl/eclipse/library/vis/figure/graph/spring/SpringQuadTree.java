@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2013 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.library.vis.figure.graph.spring;
+
+import java.util.List;
+
+import org.rascalmpl.eclipse.library.vis.util.vector.Vector2D;
+
+/**
+ * Barnes-Hut approximation of the repulsive forces between the nodes of a spring graph.
+ *
+ * The quadtree is built from the node positions at the start of a round. A cell which
+ * is far enough away from a node, its size divided by its distance being less than theta,
+ * repels the node as if all its nodes were at their center of mass. Otherwise the cell
+ * is opened and its quadrants are visited. A theta of 0 gives the exact forces.
+ *
+ * 		Barnes, J., & Hut, P. (1986).
+ * 		A hierarchical O(N log N) force-calculation algorithm.
+ * 		Nature, 324(6096).
+ */
+class SpringQuadTree {
+	private static final int MAX_DEPTH = 32; // nodes at (almost) the same position share a leaf
+
+	private final SpringGraph G;
+	private final double theta2;
+	private final Cell root;
+
+	SpringQuadTree(SpringGraph G, List<SpringGraphNode> nodes, double theta) {
+		this.G = G;
+		this.theta2 = theta * theta;
+
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (SpringGraphNode n : nodes) {
+			minX = Math.min(minX, n.x);
+			minY = Math.min(minY, n.y);
+			maxX = Math.max(maxX, n.x);
+			maxY = Math.max(maxY, n.y);
+		}
+		double size = Math.max(Math.max(maxX - minX, maxY - minY), 1);
+
+		root = new Cell(minX, minY, size, 0);
+		for (SpringGraphNode n : nodes) {
+			root.insert(n);
+		}
+		root.computeCenters();
+	}
+
+	/**
+	 * The sum of the repulsive forces of all other nodes on the node, see {@link SpringGraphNode#repulsiveForce(SpringGraphNode)}.
+	 */
+	Vector2D repulsiveForce(SpringGraphNode node) {
+		double[] force = new double[2];
+		root.addForce(node, force);
+		double f = G.EDGE_LENGTH_2 * G.REPEL;
+		return new Vector2D(force[0] * f, force[1] * f);
+	}
+
+	private class Cell {
+		final double left, top, size;
+		final int depth;
+		Cell[] quadrants; // null for a leaf
+		SpringGraphNode[] leaf = new SpringGraphNode[0];
+		int count;
+		double centerX, centerY;
+
+		Cell(double left, double top, double size, int depth) {
+			this.left = left;
+			this.top = top;
+			this.size = size;
+			this.depth = depth;
+		}
+
+		void insert(SpringGraphNode n) {
+			count++;
+			centerX += n.x;
+			centerY += n.y;
+
+			if (quadrants == null) {
+				if (leaf.length == 0 || depth == MAX_DEPTH) {
+					SpringGraphNode[] l = new SpringGraphNode[leaf.length + 1];
+					System.arraycopy(leaf, 0, l, 0, leaf.length);
+					l[leaf.length] = n;
+					leaf = l;
+					return;
+				}
+
+				// split
+				double half = size / 2;
+				quadrants = new Cell[] {
+						new Cell(left, top, half, depth + 1), new Cell(left + half, top, half, depth + 1),
+						new Cell(left, top + half, half, depth + 1), new Cell(left + half, top + half, half, depth + 1) };
+				for (SpringGraphNode old : leaf) {
+					quadrant(old).insert(old);
+				}
+				leaf = null;
+			}
+
+			quadrant(n).insert(n);
+		}
+
+		private Cell quadrant(SpringGraphNode n) {
+			double half = size / 2;
+			int i = (n.x < left + half ? 0 : 1) + (n.y < top + half ? 0 : 2);
+			return quadrants[i];
+		}
+
+		void computeCenters() {
+			if (count > 0) {
+				centerX /= count;
+				centerY /= count;
+			}
+			if (quadrants != null) {
+				for (Cell q : quadrants) {
+					q.computeCenters();
+				}
+			}
+		}
+
+		private boolean contains(SpringGraphNode n) {
+			return n.x >= left && n.x <= left + size && n.y >= top && n.y <= top + size;
+		}
+
+		void addForce(SpringGraphNode n, double[] force) {
+			if (count == 0) {
+				return;
+			}
+
+			if (quadrants == null) {
+				for (SpringGraphNode other : leaf) {
+					if (other != n) {
+						addForce(n, other.x, other.y, 1, force);
+					}
+				}
+				return;
+			}
+
+			double dx = n.x - centerX;
+			double dy = n.y - centerY;
+			double distance2 = dx * dx + dy * dy;
+
+			if (!contains(n) && size * size < theta2 * distance2) {
+				addForce(n, centerX, centerY, count, force);
+				return;
+			}
+
+			for (Cell q : quadrants) {
+				q.addForce(n, force);
+			}
+		}
+
+		private void addForce(SpringGraphNode n, double x, double y, int mass, double[] force) {
+			double dx = n.x - x;
+			double dy = n.y - y;
+			double distance2 = dx * dx + dy * dy;
+
+			if (distance2 > 0) {
+				force[0] += mass * dx / distance2;
+				force[1] += mass * dy / distance2;
+			}
+		}
+	}
+}
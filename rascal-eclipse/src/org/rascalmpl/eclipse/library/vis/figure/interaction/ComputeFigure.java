@@ -14,8 +14,10 @@ package org.rascalmpl.eclipse.library.vis.figure.interaction;
 
 import org.rascalmpl.eclipse.library.vis.figure.FigureFactory;
 import org.rascalmpl.eclipse.library.vis.figure.combine.LayoutProxy;
+import org.rascalmpl.eclipse.library.vis.properties.Properties;
 import org.rascalmpl.eclipse.library.vis.properties.PropertyManager;
 import org.rascalmpl.eclipse.library.vis.properties.PropertyValue;
+import org.rascalmpl.eclipse.library.vis.swt.CallbackDependencies;
 import org.rascalmpl.eclipse.library.vis.swt.IFigureConstructionEnv;
 import org.rascalmpl.eclipse.library.vis.util.NameResolver;
 import org.rascalmpl.value.IConstructor;
@@ -28,6 +30,7 @@ public class ComputeFigure extends LayoutProxy {
 	private IConstructor prevValue; // TODO: remove this when nullary closures are memoed
 	PropertyValue<Boolean> recompute;
 	private IList childProps;
+	private final CallbackDependencies dependencies;
 
 	public ComputeFigure(IFigureConstructionEnv env, PropertyManager properties, PropertyValue<Boolean> recompute, IValue fun, IList childProps) {
 		super(null,properties);
@@ -36,10 +39,19 @@ public class ComputeFigure extends LayoutProxy {
 		this.callback = fun;
 		this.recompute = recompute;
 		prevValue = null;
+		dependencies = new CallbackDependencies(fun);
 	}
 
 	public void setChildren(IFigureConstructionEnv env, NameResolver resolver){
 		if(prevValue == null || recompute.getValue()){
+			boolean reactive = prop.getBool(Properties.REACTIVE);
+			if(prevValue != null && reactive && !dependencies.isStale()){
+				env.getCallBackEnv().skipRascalCallBack();
+				return;
+			}
+			if(reactive){
+				dependencies.record();
+			}
 			IConstructor figureCons =
 				(IConstructor) env.getCallBackEnv().executeRascalFigureCallBack(callback, noTypes, noArgs);
 			if(figureCons == null){
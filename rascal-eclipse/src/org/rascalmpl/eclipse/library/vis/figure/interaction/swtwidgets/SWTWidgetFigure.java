@@ -47,8 +47,8 @@ public abstract class SWTWidgetFigure<WidgetType extends Control> extends Figure
 	@Override 
 	public void initElem(IFigureConstructionEnv env, MouseOver mparent, boolean swtSeen, boolean visible, NameResolver resolver){
 		env.addSWTElement(widget);
-		widget.setBackground(SWTFontsAndColors.getRgbColor(prop.getColor(FILL_COLOR)));
-		widget.setForeground(SWTFontsAndColors.getRgbColor(prop.getColor(FONT_COLOR)));
+		widget.setBackground(SWTFontsAndColors.getPooledRgbColor(prop.getColor(FILL_COLOR)));
+		widget.setForeground(SWTFontsAndColors.getPooledRgbColor(prop.getColor(FONT_COLOR)));
 	}
 	
 	@Override
@@ -88,11 +88,11 @@ public abstract class SWTWidgetFigure<WidgetType extends Control> extends Figure
 				widget.setSize(rx,
 						ry);
 			}
-				Color b = SWTFontsAndColors.getRgbColor(prop.getColor(FILL_COLOR));
+				Color b = SWTFontsAndColors.getPooledRgbColor(prop.getColor(FILL_COLOR));
 				if(!widget.getBackground().equals(b)){
 					widget.setBackground(b);
 				}
-				b = SWTFontsAndColors.getRgbColor(prop.getColor(FONT_COLOR));
+				b = SWTFontsAndColors.getPooledRgbColor(prop.getColor(FONT_COLOR));
 				if(!widget.getForeground().equals(b)){
 					widget.setForeground(b);
 				}
@@ -9,7 +9,6 @@ package org.rascalmpl.eclipse.library.vis.graphics;
 
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontData;
-import org.eclipse.swt.graphics.GC;
 
 public interface GraphicsContext {
 	
@@ -53,8 +52,5 @@ public interface GraphicsContext {
 	public void endShape(int arg0 );
 
 	public void dispose();
-	
-
-	public void setGC(GC gc);
 
 }
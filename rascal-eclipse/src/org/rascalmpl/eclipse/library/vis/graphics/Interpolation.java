@@ -27,10 +27,14 @@ package org.rascalmpl.eclipse.library.vis.graphics;
 import java.util.ArrayList;
 
 
+/**
+ * Interpolates a curve through points. The result is kept in the fields of the instance,
+ * so use a new instance for every curve; this lets figures be drawn by several threads at once.
+ */
 public class Interpolation {
 	final static boolean debug = false;
-	public static double[] lD, uD, D, z, v, h, x, y;
-	public static TypedPoint[] P0, P1, P2, P3;
+	private double[] lD, uD, D, z, v, h, x, y;
+	public TypedPoint[] P0 = {}, P1 = {}, P2 = {}, P3 = {};
 
 	// Tridiagonal matrix algorithm Solve Av = c;
 	static void solveMatrix(double[] a, double[] b, double[] c, double[] v,
@@ -76,7 +80,7 @@ public class Interpolation {
 		}
 	}
 
-	static boolean computeMatrix(ArrayList<TypedPoint> r) {
+	boolean computeMatrix(ArrayList<TypedPoint> r) {
 		x = new double[r.size()];
 		y = new double[r.size()];
 		int n = 0;
@@ -124,7 +128,7 @@ public class Interpolation {
 		return true;
 	}
 
-	public static void solve(ArrayList<TypedPoint> r, boolean closed) {
+	public void solve(ArrayList<TypedPoint> r, boolean closed) {
 		if (!computeMatrix(r))
 			return;
 		solveMatrix(lD, D, uD, v, z);
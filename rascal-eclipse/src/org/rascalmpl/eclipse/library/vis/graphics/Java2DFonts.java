@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2013 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.library.vis.graphics;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Text measurement with Java2D fonts, for threads without an SWT display, see {@link Java2DGraphicsContext}.
+ * Unlike {@link org.rascalmpl.eclipse.library.vis.swt.SWTFontsAndColors} it may be used by several threads at once.
+ */
+public class Java2DFonts {
+	// font sizes are in points, SWT draws them at 96 dpi where Java2D uses 72
+	private static final double POINTS_TO_PIXELS = 96.0 / 72.0;
+	private static final int MAX_CACHED_FONTS = 256;
+	private static final FontRenderContext CONTEXT = new FontRenderContext(null, true, true);
+	private static final ConcurrentHashMap<String, Measured> fonts = new ConcurrentHashMap<String, Measured>();
+
+	public static Font getFont(String fontName, int fontSize, FontStyle... styles){
+		return getMeasured(fontName, fontSize, styles).font;
+	}
+
+	public static double textAscent(String fontName, int fontSize, FontStyle... styles){
+		return getMeasured(fontName, fontSize, styles).ascent;
+	}
+
+	public static double textDescent(String fontName, int fontSize, FontStyle... styles){
+		return getMeasured(fontName, fontSize, styles).descent;
+	}
+
+	public static double textWidth(String s, String fontName, int fontSize, FontStyle... styles){
+		return Math.ceil(getMeasured(fontName, fontSize, styles).font.getStringBounds(s, CONTEXT).getWidth());
+	}
+
+	static double textAscent(Font font){
+		return Math.ceil(font.getLineMetrics("", CONTEXT).getAscent());
+	}
+
+	private static Measured getMeasured(String fontName, int fontSize, FontStyle... styles){
+		int style = Font.PLAIN;
+		for(FontStyle s : styles){
+			if(s == FontStyle.BOLD){
+				style |= Font.BOLD;
+			} else if(s == FontStyle.ITALIC){
+				style |= Font.ITALIC;
+			}
+		}
+		String key = fontName + "/" + fontSize + "/" + style;
+		Measured result = fonts.get(key);
+		if(result == null){
+			if(fonts.size() > MAX_CACHED_FONTS){
+				fonts.clear();
+			}
+			Font font = new Font(fontName, style, 1).deriveFont((float)(fontSize * POINTS_TO_PIXELS));
+			result = new Measured(font);
+			Measured other = fonts.putIfAbsent(key, result);
+			if(other != null){
+				result = other;
+			}
+		}
+		return result;
+	}
+
+	private static final class Measured {
+		final Font font;
+		final double ascent, descent;
+
+		Measured(Font font){
+			this.font = font;
+			LineMetrics m = font.getLineMetrics("", CONTEXT);
+			ascent = Math.ceil(m.getAscent());
+			descent = Math.ceil(m.getDescent());
+		}
+	}
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2013 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.library.vis.graphics;
+
+import static org.rascalmpl.eclipse.library.vis.util.FigureMath.CLOSE;
+import static org.rascalmpl.eclipse.library.vis.util.FigureMath.OPEN;
+import static org.rascalmpl.eclipse.library.vis.util.FigureMath.degrees;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.rascalmpl.eclipse.library.vis.util.FigureColorUtils;
+
+/**
+ * Draws figures on a Java2D {@link Graphics2D}, for instance of a {@link BufferedImage}. It needs no SWT display,
+ * so figures can be drawn by any thread, see {@link org.rascalmpl.eclipse.library.vis.swt.HeadlessFigureEnvironment}.
+ * It draws the same shapes as {@link SWTGraphicsContext}.
+ */
+public class Java2DGraphicsContext implements GraphicsContext {
+
+	private final Graphics2D g;
+	private final Stack<AffineTransform> stackMatrix = new Stack<AffineTransform>();
+	private List<TypedPoint> route;
+	private boolean fill = true, stroke = true, shadow;
+	private Color fillColor = Color.WHITE, strokeColor = Color.BLACK, fontColor = Color.BLACK;
+	private int shadowColor;
+	private double shadowLeft, shadowTop;
+	private int lineWidth = 0;
+	private String lineStyle = "solid";
+	private java.awt.Font currentFont;
+	private double translateX, translateY;
+
+	public Java2DGraphicsContext(Graphics2D g) {
+		this.g = g;
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		updateStroke();
+	}
+
+	public Graphics2D getGraphics(){
+		return g;
+	}
+
+	private static Color toColor(int c){
+		return new Color(FigureColorUtils.getRed(c), FigureColorUtils.getGreen(c), FigureColorUtils.getBlue(c), FigureColorUtils.getAlpha(c));
+	}
+
+	public void line(double x1, double y1, double x2, double y2) {
+		g.setColor(strokeColor);
+		g.drawLine((int) x1, (int) y1, (int) x2, (int) y2);
+	}
+
+	public void rect(double x, double y, double width, double height) {
+		int xi = (int) x, yi = (int) y;
+		int wi = (int) (x + width) - xi, hi = (int) (y + height) - yi;
+		if (fill) {
+			if (shadow) {
+				g.setColor(toColor(shadowColor));
+				g.fillRect(xi + (int) shadowLeft, yi + (int) shadowTop, wi, hi);
+			}
+			g.setColor(fillColor);
+			g.fillRect(xi, yi, wi, hi);
+		}
+		if (stroke) {
+			g.setColor(strokeColor);
+			g.drawRect(xi, yi, wi, hi);
+		}
+	}
+
+	public void ellipse(double x, double y, double width, double height) {
+		int xi = (int) x, yi = (int) y;
+		int wi = (int) (x + width) - xi, hi = (int) (y + height) - yi;
+		if (fill) {
+			if (shadow) {
+				g.setColor(toColor(shadowColor));
+				g.fillOval(xi + (int) shadowLeft, yi + (int) shadowTop, wi, hi);
+			}
+			g.setColor(fillColor);
+			g.fillOval(xi, yi, wi, hi);
+		}
+		if (stroke) {
+			g.setColor(strokeColor);
+			g.drawOval(xi, yi, wi, hi);
+		}
+	}
+
+	public void text(String s, double x, double y) {
+		if (currentFont == null) {
+			return;
+		}
+		g.setColor(fontColor);
+		g.setFont(currentFont);
+		// SWT draws text below its location, Java2D on its baseline
+		g.drawString(s, (float) x, (float) (y + Java2DFonts.textAscent(currentFont)));
+	}
+
+	public void arc(double x, double y, double width, double height, double startAngle, double stopAngle) {
+		g.setColor(strokeColor);
+		g.drawArc((int) x, (int) y, (int) width, (int) height, (int) degrees(startAngle), (int) degrees(stopAngle));
+	}
+
+	public void fill(int color) {
+		fill = true;
+		fillColor = toColor(color);
+	}
+
+	public void stroke(int color) {
+		stroke = true;
+		strokeColor = toColor(color);
+	}
+
+	public void font(int color) {
+		fontColor = toColor(color);
+	}
+
+	public void strokeWeight(double w) {
+		lineWidth = (int) w;
+		stroke = (lineWidth != 0);
+		updateStroke();
+	}
+
+	public void strokeStyle(String style) {
+		lineStyle = style;
+		updateStroke();
+	}
+
+	// the dash patterns of SWT, which scale with the line width
+	static float[] dashes(String style, int lineWidth){
+		float[] dashes;
+		if (style.equals("dash")) dashes = new float[] { 18, 6 };
+		else if (style.equals("dot")) dashes = new float[] { 3, 3 };
+		else if (style.equals("dashdot")) dashes = new float[] { 9, 6, 3, 6 };
+		else if (style.equals("dashdotdot")) dashes = new float[] { 9, 3, 3, 3, 3, 3 };
+		else return null;
+		for (int i = 0; i < dashes.length; i++) {
+			dashes[i] *= Math.max(1, lineWidth);
+		}
+		return dashes;
+	}
+
+	private void updateStroke(){
+		float w = Math.max(1, lineWidth);
+		g.setStroke(new BasicStroke(w, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10, dashes(lineStyle, lineWidth), 0));
+	}
+
+	public void textSize(double size) {
+		if (currentFont != null) {
+			currentFont = currentFont.deriveFont((float) size);
+		}
+	}
+
+	public void setShadow(boolean shadow) {
+		this.shadow = shadow;
+	}
+
+	public void setShadowColor(int color) {
+		this.shadowColor = color;
+	}
+
+	public void setShadowLeft(double x) {
+		this.shadowLeft = x;
+	}
+
+	public void setShadowTop(double y) {
+		this.shadowTop = y;
+	}
+
+	public void setFont(String fontName, int fontSize, FontStyle... styles) {
+		currentFont = Java2DFonts.getFont(fontName, fontSize, styles);
+	}
+
+	/**
+	 * There is no SWT font, this is only used for SWT widgets which are not drawn here.
+	 */
+	public Font getFont() {
+		return null;
+	}
+
+	/**
+	 * There is no SWT font, this is only used for SWT widgets which are not drawn here.
+	 */
+	public FontData getFontData() {
+		return null;
+	}
+
+	public void pushMatrix() {
+		stackMatrix.push(g.getTransform());
+	}
+
+	public void popMatrix() {
+		g.setTransform(stackMatrix.pop());
+	}
+
+	public void rotate(double angle) {
+		g.rotate(Math.toRadians(angle));
+	}
+
+	public double getTranslateX() {
+		return translateX;
+	}
+
+	public double getTranslateY() {
+		return translateY;
+	}
+
+	public void translate(double x, double y) {
+		translateX += x;
+		translateY += y;
+		g.translate(x, y);
+	}
+
+	public void scale(double scaleX, double scaleY) {
+		g.scale(scaleX, scaleY);
+	}
+
+	public void bezierVertex(double cx1, double cy1, double cx2, double cy2, double x, double y) {
+		route.add(new TypedPoint(cx1, cy1, TypedPoint.kind.BEZIER));
+		route.add(new TypedPoint(cx2, cy2, TypedPoint.kind.BEZIER));
+		route.add(new TypedPoint(x, y, TypedPoint.kind.BEZIER));
+	}
+
+	public void vertex(double x, double y) {
+		route.add(new TypedPoint(x, y, TypedPoint.kind.NORMAL));
+	}
+
+	public void curveVertex(double x, double y) {
+		route.add(new TypedPoint(x, y, TypedPoint.kind.CURVED));
+	}
+
+	public void noFill() {
+		fill = false;
+	}
+
+	public void beginShape() {
+		route = new ArrayList<TypedPoint>();
+	}
+
+	public void beginShape(int arg0) {
+		beginShape();
+	}
+
+	public void endShape() {
+		endShape(OPEN);
+	}
+
+	public void endShape(int arg0) {
+		Path2D p = toPath(route, arg0 == CLOSE);
+		route = null;
+		if (fill) {
+			g.setColor(fillColor);
+			g.fill(p);
+		}
+		if (stroke) {
+			g.setColor(strokeColor);
+			g.draw(p);
+		}
+	}
+
+	/**
+	 * The path of a shape, with the same interpretation of the vertices as {@link SWTGraphicsContext#endShape(int)}.
+	 */
+	static Path2D toPath(List<TypedPoint> points, boolean closed) {
+		ArrayList<TypedPoint> r = new ArrayList<TypedPoint>(points);
+		Path2D p = new Path2D.Double();
+		TypedPoint q = r.get(0);
+		if (q.curved != TypedPoint.kind.CURVED)
+			r.remove(0);
+		p.moveTo(q.x, q.y);
+		if (closed) {
+			r.add(new TypedPoint(q.x, q.y, TypedPoint.kind.NORMAL));
+		}
+		while (!r.isEmpty()) {
+			addNotCurved(r, p);
+			addCurved(r, p);
+		}
+		return p;
+	}
+
+	private static void addNotCurved(ArrayList<TypedPoint> r, Path2D p) {
+		while (!r.isEmpty()) {
+			TypedPoint z = r.get(0);
+			if (z.curved == TypedPoint.kind.NORMAL) {
+				p.lineTo(z.x, z.y);
+				r.remove(0);
+			} else if (z.curved == TypedPoint.kind.BEZIER) {
+				TypedPoint c1 = r.remove(0);
+				TypedPoint c2 = r.remove(0);
+				z = r.remove(0);
+				p.curveTo(c1.x, c1.y, c2.x, c2.y, z.x, z.y);
+			} else {
+				break;
+			}
+		}
+	}
+
+	private static void addCurved(ArrayList<TypedPoint> r, Path2D p) {
+		if (r.size() < 3) {
+			// too few points to interpolate
+			r.clear();
+			return;
+		}
+		Interpolation curve = new Interpolation();
+		curve.solve(r, false);
+		int n = curve.P0.length;
+		for (int i = 0; i < n; i++)
+			p.curveTo(curve.P1[i].x, curve.P1[i].y,
+					curve.P2[i].x, curve.P2[i].y,
+					curve.P3[i].x, curve.P3[i].y);
+	}
+
+	public void dispose() {
+		g.dispose();
+	}
+}
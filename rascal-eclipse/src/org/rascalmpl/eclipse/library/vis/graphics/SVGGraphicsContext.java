@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2013 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.library.vis.graphics;
+
+import static org.rascalmpl.eclipse.library.vis.util.FigureMath.CLOSE;
+import static org.rascalmpl.eclipse.library.vis.util.FigureMath.OPEN;
+import static org.rascalmpl.eclipse.library.vis.util.FigureMath.degrees;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Path2D;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Stack;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.rascalmpl.eclipse.library.vis.util.FigureColorUtils;
+
+/**
+ * Writes the drawing commands as SVG elements to a stream while the figure is drawn, so the
+ * size of the exported figure is not limited by an image in memory or by the view port.
+ * Call {@link #dispose()} to finish the document.
+ */
+public class SVGGraphicsContext implements GraphicsContext {
+
+	private final Writer out;
+	private final Stack<AffineTransform> stackMatrix = new Stack<AffineTransform>();
+	private AffineTransform transform = new AffineTransform();
+	private List<TypedPoint> route;
+	private boolean fill = true, stroke = true, shadow;
+	private int fillColor = FigureColorUtils.WHITE, strokeColor = FigureColorUtils.BLACK, fontColor = FigureColorUtils.BLACK;
+	private int shadowColor;
+	private double shadowLeft, shadowTop;
+	private int lineWidth = 0;
+	private String lineStyle = "solid";
+	private String fontName;
+	private int fontSize;
+	private FontStyle[] fontStyles = {};
+	private double translateX, translateY;
+
+	public SVGGraphicsContext(OutputStream to, double width, double height) {
+		out = new BufferedWriter(new OutputStreamWriter(to, StandardCharsets.UTF_8));
+		write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		write(String.format(Locale.ROOT, "<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\">\n",
+				(int) Math.ceil(width) + 1, (int) Math.ceil(height) + 1, (int) Math.ceil(width) + 1, (int) Math.ceil(height) + 1));
+		write(String.format(Locale.ROOT, "<rect width=\"100%%\" height=\"100%%\" fill=\"white\"/>\n"));
+	}
+
+	private void write(String s) {
+		try {
+			out.write(s);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String num(double d) {
+		if (d == Math.rint(d)) {
+			return Long.toString((long) d);
+		}
+		return String.format(Locale.ROOT, "%.2f", d);
+	}
+
+	private static String color(int c) {
+		return String.format("#%02x%02x%02x", FigureColorUtils.getRed(c), FigureColorUtils.getGreen(c), FigureColorUtils.getBlue(c));
+	}
+
+	private static String paint(String attribute, int c) {
+		int alpha = FigureColorUtils.getAlpha(c);
+		String result = " " + attribute + "=\"" + color(c) + "\"";
+		if (alpha != FigureColorUtils.OPAQUE) {
+			result += " " + attribute + "-opacity=\"" + num(alpha / 255.0) + "\"";
+		}
+		return result;
+	}
+
+	private String transformAttribute() {
+		if (transform.isIdentity()) {
+			return "";
+		}
+		if (transform.getType() == AffineTransform.TYPE_TRANSLATION) {
+			return " transform=\"translate(" + num(transform.getTranslateX()) + " " + num(transform.getTranslateY()) + ")\"";
+		}
+		return " transform=\"matrix(" + num(transform.getScaleX()) + " " + num(transform.getShearY()) + " " + num(transform.getShearX())
+				+ " " + num(transform.getScaleY()) + " " + num(transform.getTranslateX()) + " " + num(transform.getTranslateY()) + ")\"";
+	}
+
+	private String fillAttributes() {
+		return fill ? paint("fill", fillColor) : " fill=\"none\"";
+	}
+
+	private String strokeAttributes() {
+		if (!stroke) {
+			return " stroke=\"none\"";
+		}
+		String result = paint("stroke", strokeColor) + " stroke-width=\"" + Math.max(1, lineWidth) + "\"";
+		float[] dashes = Java2DGraphicsContext.dashes(lineStyle, lineWidth);
+		if (dashes != null) {
+			StringBuilder b = new StringBuilder();
+			for (float d : dashes) {
+				b.append(b.length() == 0 ? "" : " ").append(num(d));
+			}
+			result += " stroke-dasharray=\"" + b + "\"";
+		}
+		return result;
+	}
+
+	private void shape(String element, String geometry, String fillAttributes, String strokeAttributes) {
+		write("<" + element + " " + geometry + fillAttributes + strokeAttributes + transformAttribute() + "/>\n");
+	}
+
+	public void line(double x1, double y1, double x2, double y2) {
+		shape("line", "x1=\"" + num((int) x1) + "\" y1=\"" + num((int) y1) + "\" x2=\"" + num((int) x2) + "\" y2=\"" + num((int) y2) + "\"", "", strokeAttributes());
+	}
+
+	public void rect(double x, double y, double width, double height) {
+		int xi = (int) x, yi = (int) y;
+		int wi = (int) (x + width) - xi, hi = (int) (y + height) - yi;
+		if (fill && shadow) {
+			shape("rect", "x=\"" + num(xi + shadowLeft) + "\" y=\"" + num(yi + shadowTop) + "\" width=\"" + wi + "\" height=\"" + hi + "\"",
+					paint("fill", shadowColor), " stroke=\"none\"");
+		}
+		shape("rect", "x=\"" + xi + "\" y=\"" + yi + "\" width=\"" + wi + "\" height=\"" + hi + "\"", fillAttributes(), strokeAttributes());
+	}
+
+	public void ellipse(double x, double y, double width, double height) {
+		int xi = (int) x, yi = (int) y;
+		int wi = (int) (x + width) - xi, hi = (int) (y + height) - yi;
+		if (fill && shadow) {
+			shape("ellipse", "cx=\"" + num(xi + wi / 2.0 + shadowLeft) + "\" cy=\"" + num(yi + hi / 2.0 + shadowTop) + "\" rx=\"" + num(wi / 2.0) + "\" ry=\"" + num(hi / 2.0) + "\"",
+					paint("fill", shadowColor), " stroke=\"none\"");
+		}
+		shape("ellipse", "cx=\"" + num(xi + wi / 2.0) + "\" cy=\"" + num(yi + hi / 2.0) + "\" rx=\"" + num(wi / 2.0) + "\" ry=\"" + num(hi / 2.0) + "\"",
+				fillAttributes(), strokeAttributes());
+	}
+
+	public void text(String s, double x, double y) {
+		if (fontName == null) {
+			return;
+		}
+		StringBuilder style = new StringBuilder();
+		for (FontStyle f : fontStyles) {
+			if (f == FontStyle.BOLD) style.append(" font-weight=\"bold\"");
+			if (f == FontStyle.ITALIC) style.append(" font-style=\"italic\"");
+		}
+		// SWT draws text below its location, SVG on its baseline
+		double ascent = Java2DFonts.textAscent(fontName, fontSize, fontStyles);
+		write("<text x=\"" + num((int) x) + "\" y=\"" + num((int) y + ascent) + "\" font-family=\"" + escape(fontName) + "\" font-size=\"" + fontSize + "pt\""
+				+ style + paint("fill", fontColor) + " xml:space=\"preserve\"" + transformAttribute() + ">" + escape(s) + "</text>\n");
+	}
+
+	private static String escape(String s) {
+		StringBuilder b = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '<': b.append("&lt;"); break;
+			case '>': b.append("&gt;"); break;
+			case '&': b.append("&amp;"); break;
+			case '"': b.append("&quot;"); break;
+			default:
+				if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+					break; // not allowed in XML
+				}
+				b.append(c);
+			}
+		}
+		return b.toString();
+	}
+
+	public void arc(double x, double y, double width, double height, double startAngle, double stopAngle) {
+		Arc2D arc = new Arc2D.Double((int) x, (int) y, (int) width, (int) height, (int) degrees(startAngle), (int) degrees(stopAngle), Arc2D.OPEN);
+		shape("path", "d=\"" + pathData(arc.getPathIterator(null)) + "\"", " fill=\"none\"", strokeAttributes());
+	}
+
+	public void fill(int color) {
+		fill = true;
+		fillColor = color;
+	}
+
+	public void stroke(int color) {
+		stroke = true;
+		strokeColor = color;
+	}
+
+	public void font(int color) {
+		fontColor = color;
+	}
+
+	public void strokeWeight(double w) {
+		lineWidth = (int) w;
+		stroke = (lineWidth != 0);
+	}
+
+	public void strokeStyle(String style) {
+		lineStyle = style;
+	}
+
+	public void textSize(double size) {
+		fontSize = (int) size;
+	}
+
+	public void setShadow(boolean shadow) {
+		this.shadow = shadow;
+	}
+
+	public void setShadowColor(int color) {
+		this.shadowColor = color;
+	}
+
+	public void setShadowLeft(double x) {
+		this.shadowLeft = x;
+	}
+
+	public void setShadowTop(double y) {
+		this.shadowTop = y;
+	}
+
+	public void setFont(String fontName, int fontSize, FontStyle... styles) {
+		this.fontName = fontName;
+		this.fontSize = fontSize;
+		this.fontStyles = styles;
+	}
+
+	/**
+	 * There is no SWT font, this is only used for SWT widgets which are not exported.
+	 */
+	public Font getFont() {
+		return null;
+	}
+
+	/**
+	 * There is no SWT font, this is only used for SWT widgets which are not exported.
+	 */
+	public FontData getFontData() {
+		return null;
+	}
+
+	public void pushMatrix() {
+		stackMatrix.push(new AffineTransform(transform));
+	}
+
+	public void popMatrix() {
+		transform = stackMatrix.pop();
+	}
+
+	public void rotate(double angle) {
+		transform.rotate(Math.toRadians(angle));
+	}
+
+	public double getTranslateX() {
+		return translateX;
+	}
+
+	public double getTranslateY() {
+		return translateY;
+	}
+
+	public void translate(double x, double y) {
+		translateX += x;
+		translateY += y;
+		transform.translate(x, y);
+	}
+
+	public void scale(double scaleX, double scaleY) {
+		transform.scale(scaleX, scaleY);
+	}
+
+	public void bezierVertex(double cx1, double cy1, double cx2, double cy2, double x, double y) {
+		route.add(new TypedPoint(cx1, cy1, TypedPoint.kind.BEZIER));
+		route.add(new TypedPoint(cx2, cy2, TypedPoint.kind.BEZIER));
+		route.add(new TypedPoint(x, y, TypedPoint.kind.BEZIER));
+	}
+
+	public void vertex(double x, double y) {
+		route.add(new TypedPoint(x, y, TypedPoint.kind.NORMAL));
+	}
+
+	public void curveVertex(double x, double y) {
+		route.add(new TypedPoint(x, y, TypedPoint.kind.CURVED));
+	}
+
+	public void noFill() {
+		fill = false;
+	}
+
+	public void beginShape() {
+		route = new ArrayList<TypedPoint>();
+	}
+
+	public void beginShape(int arg0) {
+		beginShape();
+	}
+
+	public void endShape() {
+		endShape(OPEN);
+	}
+
+	public void endShape(int arg0) {
+		Path2D p = Java2DGraphicsContext.toPath(route, arg0 == CLOSE);
+		route = null;
+		shape("path", "d=\"" + pathData(p.getPathIterator(null)) + "\"", fillAttributes(), strokeAttributes());
+	}
+
+	private static String pathData(PathIterator it) {
+		StringBuilder d = new StringBuilder();
+		double[] c = new double[6];
+		for (; !it.isDone(); it.next()) {
+			switch (it.currentSegment(c)) {
+			case PathIterator.SEG_MOVETO:
+				d.append("M").append(num(c[0])).append(' ').append(num(c[1]));
+				break;
+			case PathIterator.SEG_LINETO:
+				d.append("L").append(num(c[0])).append(' ').append(num(c[1]));
+				break;
+			case PathIterator.SEG_QUADTO:
+				d.append("Q").append(num(c[0])).append(' ').append(num(c[1])).append(' ').append(num(c[2])).append(' ').append(num(c[3]));
+				break;
+			case PathIterator.SEG_CUBICTO:
+				d.append("C").append(num(c[0])).append(' ').append(num(c[1])).append(' ').append(num(c[2])).append(' ')
+					.append(num(c[3])).append(' ').append(num(c[4])).append(' ').append(num(c[5]));
+				break;
+			case PathIterator.SEG_CLOSE:
+				d.append("Z");
+				break;
+			}
+		}
+		return d.toString();
+	}
+
+	/**
+	 * Finishes the document and flushes it, the stream is not closed.
+	 */
+	public void dispose() {
+		write("</svg>\n");
+		try {
+			out.flush();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -153,8 +153,7 @@ public class SWTGraphicsContext implements GraphicsContext {
 		int backgroundCI = FigureColorUtils.withoutAlpha(arg0);
 		if(this.backgroundCI == backgroundCI  && backgroundColor != null) return;
 		this.backgroundCI = backgroundCI;
-		disposeIfNessary(backgroundColor);
-		backgroundColor = SWTFontsAndColors.getRgbColor(arg0);
+		backgroundColor = SWTFontsAndColors.getPooledRgbColor(device, arg0);
 		gc.setBackground(backgroundColor);
 		
 	}
@@ -165,8 +164,7 @@ public class SWTGraphicsContext implements GraphicsContext {
 		int foreGroundCI = FigureColorUtils.withoutAlpha(arg0);
 		if(this.foreGroundCI == foreGroundCI && foregroundColor != null) return;
 		this.foreGroundCI = foreGroundCI;
-		disposeIfNessary(foregroundColor);
-		foregroundColor = SWTFontsAndColors.getRgbColor(arg0);
+		foregroundColor = SWTFontsAndColors.getPooledRgbColor(device, arg0);
 		gc.setForeground(foregroundColor);
 		
 	}
@@ -176,8 +174,7 @@ public class SWTGraphicsContext implements GraphicsContext {
 		int fontCI = FigureColorUtils.withoutAlpha(color);
 		if(this.fontCI == fontCI && fontColor != null) return;
 		this.fontCI = fontCI;
-		disposeIfNessary(fontColor);
-		fontColor = SWTFontsAndColors.getRgbColor(color);
+		fontColor = SWTFontsAndColors.getPooledRgbColor(device, color);
 	}
 
 	public void strokeWeight(double arg0) {
@@ -321,15 +318,16 @@ public class SWTGraphicsContext implements GraphicsContext {
 		// System.err.println("drawCurved:" + r.size());
 		if (r.size() < 3)
 			return;
-		Interpolation.solve(r, closed);
-		int n = Interpolation.P0.length;
+		Interpolation curve = new Interpolation();
+		curve.solve(r, closed);
+		int n = curve.P0.length;
 		for (int i = 0; i < n; i++)
-			p.cubicTo((float) Interpolation.P1[i].x,
-					(float) Interpolation.P1[i].y,
-					(float) Interpolation.P2[i].x,
-					(float) Interpolation.P2[i].y,
-					(float) Interpolation.P3[i].x,
-					(float) Interpolation.P3[i].y);
+			p.cubicTo((float) curve.P1[i].x,
+					(float) curve.P1[i].y,
+					(float) curve.P2[i].x,
+					(float) curve.P2[i].y,
+					(float) curve.P3[i].x,
+					(float) curve.P3[i].y);
 	}
 
 	public void endShape() {
@@ -447,9 +445,7 @@ public class SWTGraphicsContext implements GraphicsContext {
 		Color color0 = gc.getBackground();
 		int alpha = FigureColorUtils.getAlpha(arg0);
 		gc.setAlpha(alpha);
-		Color color = new Color(device, FigureColorUtils.getRed(arg0),
-				FigureColorUtils.getGreen(arg0), FigureColorUtils.getBlue(arg0));
-		gc.setBackground(color);
+		gc.setBackground(SWTFontsAndColors.getPooledRgbColor(device, arg0));
 		switch (shape) {
 		case RECTANGLE:
 			gc.fillRectangle(x, y, width, height);
@@ -13,6 +13,7 @@
 package org.rascalmpl.eclipse.library.vis.properties;
 
 import org.rascalmpl.interpreter.result.Result;
+import org.rascalmpl.eclipse.library.vis.swt.CallbackDependencies;
 import org.rascalmpl.eclipse.library.vis.swt.IFigureConstructionEnv;
 import org.rascalmpl.eclipse.library.vis.util.RascalToJavaValueConverters.Convert;
 import org.rascalmpl.value.IValue;
@@ -25,6 +26,7 @@ public  class ComputedValue<PropType> extends PropertyValue<PropType> {
 	IFigureConstructionEnv env;
 	Convert<PropType> converter; 
 	PropertyManager pm;
+	CallbackDependencies dependencies;
 
 	public ComputedValue(IValue fun, IFigureConstructionEnv env, PropertyManager pm, Convert<PropType> converter){
 		this.fun = fun;
@@ -35,6 +37,9 @@ public  class ComputedValue<PropType> extends PropertyValue<PropType> {
 	}
 	
 	void compute() {
+		if(dependencies != null){
+			dependencies.record();
+		}
 		Result<IValue> res = env.getCallBackEnv().executeRascalCallBackWithoutArguments(fun);
 		value = converter.convert(res.getValue(), pm, env);
 	}
@@ -42,10 +47,26 @@ public  class ComputedValue<PropType> extends PropertyValue<PropType> {
 	public PropType getValue() {
 		int currentComputeClock = env.getCallBackEnv().getComputeClock();
 		if(currentComputeClock != lastComputeClock){
-			compute();
+			if(!isReactive()){
+				dependencies = null;
+				compute();
+			} else if(dependencies == null || dependencies.isStale()){
+				if(dependencies == null){
+					dependencies = new CallbackDependencies(fun);
+				}
+				compute();
+			} else {
+				env.getCallBackEnv().skipRascalCallBack();
+			}
 			lastComputeClock = currentComputeClock;
 		}
 		return value;
-	}	
+	}
+	
+	// the reactive property itself may be computed, but then not reactively
+	private boolean isReactive(){
+		PropertyValue<?> reactive = pm == null ? null : pm.getPropertyValue(Properties.REACTIVE);
+		return reactive != null && reactive != this && Boolean.TRUE.equals(reactive.getValue());
+	}
 }
 	
@@ -57,6 +57,8 @@ public enum Properties {
 	VMIRROR				(Types.BOOL,	"vmirror",			false,				INTERNAL	),
 	FONT_ITALIC			(Types.BOOL,	"fontItalic",		false,				INTERNAL	),
 	FONT_BOLD			(Types.BOOL,	"fontBold",			false,				INTERNAL	),
+	SPRING_PRECOMPUTE	(Types.BOOL,	"springPrecompute",	false,				INTERNAL	),
+	REACTIVE			(Types.BOOL,	"reactive",			false,				INTERNAL	),
 	
 	FILL_COLOR			(Types.COLOR,	"fillColor",		WHITE,				INTERNAL	),  
 	FONT_COLOR			(Types.COLOR,	"fontColor",		BLACK,				INTERNAL	),   
@@ -84,6 +86,7 @@ public enum Properties {
 	VGROW				(Types.REAL, 	"vgrow",			1.0,				INTERNAL,	 MUL),
 	LINE_WIDTH			(Types.REAL,	"lineWidth",		1.0,				INTERNAL	),
 	TEXT_ANGLE			(Types.REAL,	"textAngle",		0.0,				INTERNAL	),
+	SPRING_THETA		(Types.REAL,	"springTheta",		0.8,				INTERNAL	),
 	
 	TO_ARROW			(Types.FIGURE,	"toArrow",			null,				INTERNAL	),
 	FROM_ARROW			(Types.FIGURE,	"fromArrow",		null,				INTERNAL	),
@@ -7,8 +7,15 @@
 *******************************************************************************/
 package org.rascalmpl.eclipse.library.vis.swt;
 
+import org.rascalmpl.eclipse.library.vis.figure.Figure;
+
 public interface Animation {
 	// returns true on more frames, false else
 	boolean moreFrames();
 	void animate();
+	
+	// the figure which contains everything that moves, only that part of the view is drawn again; null for everything
+	default Figure getAnimatedFigure() {
+		return null;
+	}
 }
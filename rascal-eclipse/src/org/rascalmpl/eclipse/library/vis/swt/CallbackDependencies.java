@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2013 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.library.vis.swt;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.rascalmpl.ast.AbstractAST;
+import org.rascalmpl.debug.IRascalFrame;
+import org.rascalmpl.interpreter.env.Environment;
+import org.rascalmpl.interpreter.result.AbstractFunction;
+import org.rascalmpl.interpreter.result.IRascalResult;
+import org.rascalmpl.uri.URIResolverRegistry;
+import org.rascalmpl.value.IValue;
+
+/**
+ * The variables a nullary callback (of a computed property or figure) reads, such that it only
+ * has to be called again when a callback assigned one of them.
+ *
+ * The variables are the names in the source of the closure which are declared in the scopes
+ * around it, up to and including its module. Variables which are only read by functions the closure
+ * calls, or through variables of other modules, are not seen. The closure is then not called again
+ * when they change, which is why this is only done for figures with the property reactive(true).
+ */
+public class CallbackDependencies {
+	private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+	// shared by all closures of the same declaration, for instance those made in a loop; a reloaded 
+	// module has new declarations, so the names are read again and the old ones can be collected
+	private static final Map<AbstractAST, Set<String>> namesOfDeclaration = new WeakHashMap<AbstractAST, Set<String>>();
+
+	private final IValue callback;
+	private IRascalFrame[] frames;
+	private String[] variables;
+	private IValue[] seen;
+
+	public CallbackDependencies(IValue callback){
+		this.callback = callback;
+	}
+
+	/**
+	 * @return true if the callback was not recorded yet, or one of the variables it reads has another value now
+	 */
+	public boolean isStale(){
+		if(frames == null){
+			return true;
+		}
+		for(int i = 0 ; i < frames.length ; i++){
+			if(valueOf(frames[i], variables[i]) != seen[i]){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remembers the current values of the variables the callback reads, call this just before the callback is called.
+	 */
+	public void record(){
+		if(frames == null && !resolve()){
+			return;
+		}
+		for(int i = 0 ; i < frames.length ; i++){
+			seen[i] = valueOf(frames[i], variables[i]);
+		}
+	}
+
+	private boolean resolve(){
+		if(!(callback instanceof AbstractFunction)){
+			return false;
+		}
+		AbstractFunction fun = (AbstractFunction) callback;
+		Set<String> names = names(fun.getAst());
+		if(names == null){
+			return false;
+		}
+
+		List<IRascalFrame> foundFrames = new ArrayList<IRascalFrame>();
+		List<String> foundVariables = new ArrayList<String>();
+		for(String name : names){
+			for(Environment env = fun.getEnv() ; env != null ; env = env.getParent()){
+				if(env.getFrameVariables().contains(name)){
+					foundFrames.add(env);
+					foundVariables.add(name);
+					break;
+				}
+			}
+		}
+
+		frames = foundFrames.toArray(new IRascalFrame[foundFrames.size()]);
+		variables = foundVariables.toArray(new String[foundVariables.size()]);
+		seen = new IValue[frames.length];
+		return true;
+	}
+
+	private static IValue valueOf(IRascalFrame frame, String variable){
+		IRascalResult result = frame.getFrameVariable(variable);
+		return result == null ? null : result.getValue();
+	}
+
+	private static synchronized Set<String> names(AbstractAST declaration){
+		if(namesOfDeclaration.containsKey(declaration)){
+			return namesOfDeclaration.get(declaration);
+		}
+
+		Set<String> result = null;
+		try (Reader in = URIResolverRegistry.getInstance().getCharacterReader(declaration.getLocation())) {
+			StringBuilder text = new StringBuilder();
+			char[] buf = new char[4096];
+			int read;
+			while((read = in.read(buf)) != -1){
+				text.append(buf, 0, read);
+			}
+
+			result = new HashSet<String>();
+			Matcher m = IDENTIFIER.matcher(text);
+			while(m.find()){
+				result.add(m.group());
+			}
+		}
+		catch (IOException e) {
+			// without the source every batch calls the closure, as before
+		}
+
+		namesOfDeclaration.put(declaration, result);
+		return result;
+	}
+}
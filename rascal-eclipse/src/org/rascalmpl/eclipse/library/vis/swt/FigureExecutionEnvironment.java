@@ -41,6 +41,8 @@ public class FigureExecutionEnvironment implements ICallbackEnv{
 	public static boolean profile = false;
 	private NameResolver resolver;
 	private int computeClock; 
+	private int evaluatedCallbacks = 0;	// profiling, nullary callbacks called during a recompute
+	private int skippedCallbacks = 0;	// profiling, nullary callbacks whose state did not change
 
 	
 	
@@ -73,7 +75,11 @@ public class FigureExecutionEnvironment implements ICallbackEnv{
 		if(profile){
 			long elapsedTime = System.currentTimeMillis() - startTime;
 			System.out.printf("Recomputing took %d rascalTime %d %f \n",  elapsedTime, rascalTime / 1000000, (double)(rascalTime / 1000000.0) / (double) elapsedTime );
+			System.out.printf("Text measurement caches: %s\n", SWTFontsAndColors.getAndResetCacheStatistics());
+			System.out.printf("Recomputing evaluated %d closures, skipped %d\n", evaluatedCallbacks, skippedCallbacks);
 		}
+		evaluatedCallbacks = 0;
+		skippedCallbacks = 0;
 		rascalTime = 0;
 		computing = false;
 	}
@@ -172,6 +178,9 @@ public class FigureExecutionEnvironment implements ICallbackEnv{
 		}
 		
 		if(profile) rascalTime += System.nanoTime() - startTime;
+		if(computing){
+			evaluatedCallbacks++;
+		}
 		if(!computing){
 			if(callbackBatch){
 				batchEmpty = false;
@@ -181,6 +190,11 @@ public class FigureExecutionEnvironment implements ICallbackEnv{
 		return result;
 	}
 	
+	@Override
+	public void skipRascalCallBack() {
+		skippedCallbacks++;
+	}
+	
 	@Override
 	public void fakeRascalCallBack() {
 		batchEmpty = false;
@@ -238,6 +252,10 @@ public class FigureExecutionEnvironment implements ICallbackEnv{
 	public void saveImage(OutputStream s) {
 		appletRoot.saveImage(s);
 	}
+	
+	public void saveSVG(OutputStream s) {
+		appletRoot.saveSVG(s);
+	}
 
 	@Override
 	public void registerAnimation(Animation a) {
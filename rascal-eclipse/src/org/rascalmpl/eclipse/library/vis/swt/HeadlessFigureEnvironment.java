@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2013 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.library.vis.swt;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import javax.imageio.ImageIO;
+
+import org.eclipse.swt.widgets.Control;
+import org.rascalmpl.eclipse.library.vis.figure.Figure;
+import org.rascalmpl.eclipse.library.vis.figure.FigureFactory;
+import org.rascalmpl.eclipse.library.vis.figure.combine.Overlap;
+import org.rascalmpl.eclipse.library.vis.figure.combine.containers.WhiteSpace;
+import org.rascalmpl.eclipse.library.vis.graphics.GraphicsContext;
+import org.rascalmpl.eclipse.library.vis.graphics.Java2DGraphicsContext;
+import org.rascalmpl.eclipse.library.vis.graphics.SVGGraphicsContext;
+import org.rascalmpl.eclipse.library.vis.properties.IRunTimePropertyChanges;
+import org.rascalmpl.eclipse.library.vis.properties.PropertyManager;
+import org.rascalmpl.eclipse.library.vis.swt.applet.FigureSWTApplet;
+import org.rascalmpl.eclipse.library.vis.swt.applet.IHasSWTElement;
+import org.rascalmpl.eclipse.library.vis.util.FigureMath;
+import org.rascalmpl.eclipse.library.vis.util.NameResolver;
+import org.rascalmpl.eclipse.library.vis.util.vector.Coordinate;
+import org.rascalmpl.eclipse.library.vis.util.vector.Rectangle;
+import org.rascalmpl.eclipse.library.vis.util.vector.TransformMatrix;
+import org.rascalmpl.interpreter.IEvaluator;
+import org.rascalmpl.interpreter.IEvaluatorContext;
+import org.rascalmpl.interpreter.control_exceptions.Throw;
+import org.rascalmpl.interpreter.result.ICallableValue;
+import org.rascalmpl.interpreter.result.OverloadedFunction;
+import org.rascalmpl.interpreter.result.RascalFunction;
+import org.rascalmpl.interpreter.result.Result;
+import org.rascalmpl.interpreter.staticErrors.StaticError;
+import org.rascalmpl.interpreter.utils.RuntimeExceptionFactory;
+import org.rascalmpl.value.IConstructor;
+import org.rascalmpl.value.IValue;
+import org.rascalmpl.value.type.Type;
+
+/**
+ * Builds, lays out and draws a figure without an SWT display, with a {@link Java2DGraphicsContext}.
+ * Unlike {@link FigureExecutionEnvironment} it does not need the user interface thread, so several
+ * figures can be drawn by worker threads at the same time. Callbacks to Rascal are still done one at a time,
+ * on the thread of the given executor if there is one.
+ *
+ * There is no interaction: figures are computed once, animations are not run, and figures with SWT
+ * widgets (buttons, text fields, scrollables, timers) can not be drawn.
+ */
+public class HeadlessFigureEnvironment implements IFigureConstructionEnv, ICallbackEnv {
+
+	private final IEvaluatorContext ctx;
+	private final NameResolver resolver;
+	private final List<Overlap> overlapFigures = new LinkedList<Overlap>();
+	private final Figure figure;
+	private final Executor rascalThread;
+	private long rascalTime = 0;
+
+	public HeadlessFigureEnvironment(IConstructor cfig, IEvaluatorContext ctx) {
+		this(cfig, ctx, null);
+	}
+	
+	/**
+	 * @param rascalThread runs the callbacks to Rascal, for instance on the thread which waits for the workers; 
+	 *        if it is null the callbacks are done on the calling thread
+	 */
+	public HeadlessFigureEnvironment(IConstructor cfig, IEvaluatorContext ctx, Executor rascalThread) {
+		this.ctx = ctx;
+		this.rascalThread = rascalThread;
+		this.resolver = new NameResolver(ctx);
+		Figure fig = FigureFactory.make(this, cfig, null, null);
+		if(!fig.widthDependsOnHeight()){
+			fig = new WhiteSpace(fig, new PropertyManager());
+		}
+		figure = fig;
+		figure.registerIds(this, resolver);
+		figure.registerConverts(resolver);
+		figure.init(this, resolver, null, false, true);
+	}
+
+	public Figure getFigure(){
+		return figure;
+	}
+
+	/**
+	 * Lays out the figure in a view of the given size, or of its minimal size where that is larger.
+	 *
+	 * @return the size of the figure
+	 */
+	public Rectangle layout(double width, double height){
+		figure.size.set(Math.max(width, figure.minSize.getX()), Math.max(height, figure.minSize.getY()));
+		Rectangle part = new Rectangle(0, 0, figure.size.getX(), figure.size.getY());
+		figure.resize(part, new TransformMatrix());
+		for(Overlap f : overlapFigures){
+			// there is no view port to keep them in, see ViewPortHandler.adjustOverlap
+			f.over.globalLocation.set(f.desiredOverlapLocation);
+			f.over.updateGlobalLocation();
+		}
+		return part;
+	}
+
+	/**
+	 * Draws the laid out figure, see {@link #layout(double, double)}.
+	 */
+	public void draw(GraphicsContext gc, Rectangle part){
+		List<IHasSWTElement> noSWTElements = new ArrayList<IHasSWTElement>();
+		Coordinate zoom = new Coordinate(1, 1);
+		figure.updateDrawExtents();
+		figure.draw(zoom, gc, part, noSWTElements);
+		for(Overlap f : overlapFigures){
+			f.over.updateDrawExtents();
+			if(f.over.mayBeVisibleIn(part)){
+				f.over.draw(zoom, gc, part, noSWTElements);
+			}
+		}
+	}
+
+	/**
+	 * Lays out the figure in a view of at least the given size, draws it on a white background and writes it as PNG.
+	 */
+	public void savePNG(double width, double height, OutputStream to) throws IOException {
+		Rectangle part = layout(width, height);
+		BufferedImage image = new BufferedImage(FigureMath.ceil(part.getSize().getX()) + 1,
+				FigureMath.ceil(part.getSize().getY()) + 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, image.getWidth(), image.getHeight());
+			draw(new Java2DGraphicsContext(g), part);
+		}
+		finally {
+			g.dispose();
+		}
+		ImageIO.write(image, "png", to);
+	}
+
+	/**
+	 * Lays out the figure in a view of at least the given size and writes it as SVG while it is drawn.
+	 */
+	public void saveSVG(double width, double height, OutputStream to) {
+		Rectangle part = layout(width, height);
+		SVGGraphicsContext gc = new SVGGraphicsContext(to, part.getSize().getX(), part.getSize().getY());
+		draw(gc, part);
+		gc.dispose();
+	}
+
+	public void dispose(){
+		figure.destroy(this);
+	}
+
+	/* IFigureConstructionEnv */
+
+	@Override
+	public FigureSWTApplet getSWTParent() {
+		return null;
+	}
+
+	@Override
+	public void addSWTElement(Control c) {
+		throw RuntimeExceptionFactory.illegalArgument(ctx.getValueFactory().string("SWT widgets can not be drawn without a display"),
+				ctx.getCurrentAST(), ctx.getStackTrace());
+	}
+
+	@Override
+	public void addAboveSWTElement(Figure fig) {
+		// there are no SWT elements to be above of
+	}
+
+	@Override
+	public void registerOverlap(Overlap o) {
+		overlapFigures.add(o);
+	}
+
+	@Override
+	public void unregisterOverlap(Overlap o) {
+		overlapFigures.remove(o);
+	}
+
+	@Override
+	public ICallbackEnv getCallBackEnv() {
+		return this;
+	}
+
+	@Override
+	public IEvaluatorContext getRascalContext() {
+		return ctx;
+	}
+
+	@Override
+	public FigureExecutionEnvironment getFigureExecEnv() {
+		return null;
+	}
+
+	@Override
+	public IRunTimePropertyChanges getRunTimePropertyChanges() {
+		return null;
+	}
+
+	/* ICallbackEnv */
+
+	@Override
+	public void checkIfIsCallBack(IValue fun) {
+		if (!(fun.getType().isExternalType() && ((fun instanceof RascalFunction) || (fun instanceof OverloadedFunction)))) {
+			throw RuntimeExceptionFactory.illegalArgument(fun, ctx.getCurrentAST(), ctx.getStackTrace());
+		}
+	}
+
+	@Override
+	public void fakeRascalCallBack() {
+	}
+
+	@Override
+	public int getComputeClock() {
+		return 0;
+	}
+
+	@Override
+	public void signalRecompute() {
+		// nothing is drawn again
+	}
+
+	@Override
+	public long getAndResetRascalTime() {
+		long ret = rascalTime;
+		rascalTime = 0;
+		return ret;
+	}
+
+	@Override
+	public void skipRascalCallBack() {
+	}
+
+	@Override
+	public Result<IValue> executeRascalCallBack(final IValue callback, final Type[] argTypes, final IValue[] argVals) {
+		return onRascalThread(new Callable<Result<IValue>>() {
+			@Override
+			public Result<IValue> call() {
+				return callRascal(callback, argTypes, argVals);
+			}
+		});
+	}
+
+	private Result<IValue> callRascal(IValue callback, Type[] argTypes, IValue[] argVals) {
+		long startTime = System.nanoTime();
+		Result<IValue> result = null;
+		try {
+			ctx.getEvaluator().__setInterrupt(false);
+			result = ((ICallableValue) callback).call(argTypes, argVals, null);
+		}
+		catch (Throw e) {
+			e.printStackTrace(ctx.getStdErr());
+			ctx.getStdErr().printf("Callback error: " + e.getMessage() + "" + e.getTrace());
+		}
+		catch (StaticError e) {
+			e.printStackTrace(ctx.getStdErr());
+			ctx.getStdErr().printf("Callback error: " + e.getMessage());
+		}
+		rascalTime += System.nanoTime() - startTime;
+		return result;
+	}
+
+	private <T> T onRascalThread(Callable<T> call) {
+		if(rascalThread == null){
+			synchronized (ctx) {
+				try {
+					return call.call();
+				}
+				catch (RuntimeException e) {
+					throw e;
+				}
+				catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+
+		FutureTask<T> task = new FutureTask<T>(call);
+		rascalThread.execute(task);
+		try {
+			return task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("interrupted while waiting for a callback", e);
+		}
+		catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException){
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	@Override
+	public Result<IValue> executeRascalCallBackWithoutArguments(IValue callback) {
+		return executeRascalCallBack(callback, new Type[0], new IValue[0]);
+	}
+
+	@Override
+	public Result<IValue> executeRascalCallBackSingleArgument(IValue callback, Type type, IValue arg) {
+		return executeRascalCallBack(callback, new Type[] { type }, new IValue[] { arg });
+	}
+
+	@Override
+	public IConstructor executeRascalFigureCallBack(final IValue callback, final Type[] argTypes, final IValue[] argVals) {
+		return onRascalThread(new Callable<IConstructor>() {
+			@Override
+			public IConstructor call() {
+				Result<IValue> e = callRascal(callback, argTypes, argVals);
+				if(e == null){
+					return null;
+				}
+				IEvaluator<Result<IValue>> evaluator = ctx.getEvaluator();
+				return (IConstructor)evaluator.call(getRascalContext(), "vis::Figure", "normalize", e.getValue());
+			}
+		});
+	}
+
+	@Override
+	public void registerAnimation(Animation a) {
+		// not animated, see SpringGraph for a layout which is computed at once instead
+	}
+
+	@Override
+	public void unregisterAnimation(Animation a) {
+	}
+}
@@ -20,6 +20,7 @@ public interface ICallbackEnv {
 	public int getComputeClock();
 	public void signalRecompute();
 	public long getAndResetRascalTime(); // profiling
+	public void skipRascalCallBack(); // profiling, a callback which did not have to be called again
 	public Result<IValue> executeRascalCallBack(IValue callback, Type[] argTypes, IValue[] argVals) ;
 	public Result<IValue> executeRascalCallBackWithoutArguments(IValue callback) ;
 	public Result<IValue> executeRascalCallBackSingleArgument(IValue callback, Type type, IValue arg) ;
@@ -7,13 +7,19 @@
 *******************************************************************************/
 package org.rascalmpl.eclipse.library.vis.swt;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Device;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.FontMetrics;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.widgets.Display;
 import org.rascalmpl.eclipse.library.vis.graphics.FontStyle;
+import org.rascalmpl.eclipse.library.vis.graphics.Java2DFonts;
 import org.rascalmpl.eclipse.library.vis.util.FigureColorUtils;
 import org.rascalmpl.value.IList;
 import org.rascalmpl.value.IListWriter;
@@ -32,6 +38,12 @@ public class SWTFontsAndColors {
 	
 	static private Device device = null;
 	static private GC gc = null;
+	
+	// fonts and text widths are only measured on the UI thread, so these need no locking
+	private static final int MAX_WIDTHS_PER_FONT = 4096;
+	private static final Map<FontKey, CachedFont> fonts = new HashMap<FontKey, CachedFont>();
+	private static long fontHits, fontMisses, widthHits, widthMisses;
+	private static final Map<Device, Map<Integer, Color>> colorPools = new HashMap<Device, Map<Integer, Color>>();
 
 
 	private static void setGC(){
@@ -40,6 +52,12 @@ public class SWTFontsAndColors {
 			if(device == null){
 				throw new Error("Trying to create get display from non-user interface thread!");
 			}
+			((Display) device).disposeExec(new Runnable() {
+				@Override
+				public void run() {
+					disposeCaches();
+				}
+			});
 		}
 		if(gc == null || gc.isDisposed()){
 			gc = new GC(device);
@@ -70,41 +88,127 @@ public class SWTFontsAndColors {
 	
 	}
 	
+	// threads without a display, which draw with a Java2DGraphicsContext, measure with Java2D fonts
+	private static boolean headless(){
+		return Display.getCurrent() == null;
+	}
+	
 	public static double textAscent(String fontName, int fontSize,
 			FontStyle... styles) {
-		// TODO: optimize this
-		FontData fd = new FontData(fontName, fontSize, FontStyle.toStyleMask(styles));
-		Font f = new Font(device, fd);
-		setGC();
-		gc.setFont(f);
-		double result = gc.getFontMetrics().getAscent();
-		f.dispose();
-		return result;
+		if(headless()){
+			return Java2DFonts.textAscent(fontName, fontSize, styles);
+		}
+		return getCachedFont(fontName, fontSize, styles).metrics.getAscent();
 	}
 
 	public static double textDescent(String fontName, int fontSize,
 			FontStyle... styles) {
-		// TODO: optimize this
-		FontData fd = new FontData(fontName, fontSize, FontStyle.toStyleMask(styles));
-		Font f = new Font(device, fd);
-		setGC();
-		gc.setFont(f);
-		double result = gc.getFontMetrics().getDescent();
-		f.dispose();
-		return result;
+		if(headless()){
+			return Java2DFonts.textDescent(fontName, fontSize, styles);
+		}
+		return getCachedFont(fontName, fontSize, styles).metrics.getDescent();
 	}
 
 	public static double textWidth(String s, String fontName, int fontSize,
 			FontStyle... styles) {
-		// TODO: optimize this
-		FontData fd = new FontData(fontName, fontSize, FontStyle.toStyleMask(styles));
-		Font f = new Font(device, fd);
+		if(headless()){
+			return Java2DFonts.textWidth(s, fontName, fontSize, styles);
+		}
+		CachedFont f = getCachedFont(fontName, fontSize, styles);
+		Double result = f.widths.get(s);
+		if(result != null){
+			widthHits++;
+			return result;
+		}
+		widthMisses++;
+		gc.setFont(f.font);
+		result = (double) gc.textExtent(s).x;
+		f.widths.put(s, result);
+		return result;
+	}
+	
+	/**
+	 * Returns the hit rates of the font and text width caches since the previous call, 
+	 * for the profile output of the figure environment.
+	 */
+	public static String getAndResetCacheStatistics(){
+		String result = String.format("fonts %d/%d hits (%d cached), widths %d/%d hits", 
+				fontHits, fontHits + fontMisses, fonts.size(), widthHits, widthHits + widthMisses);
+		fontHits = fontMisses = widthHits = widthMisses = 0;
+		return result;
+	}
+	
+	private static CachedFont getCachedFont(String fontName, int fontSize, FontStyle... styles){
 		setGC();
+		FontKey key = new FontKey(fontName, fontSize, FontStyle.toStyleMask(styles));
+		CachedFont result = fonts.get(key);
+		if(result != null){
+			fontHits++;
+			return result;
+		}
+		fontMisses++;
+		Font f = new Font(device, new FontData(fontName, fontSize, key.style));
 		gc.setFont(f);
-		double result = gc.textExtent(s).x;
-		f.dispose();
+		result = new CachedFont(f, gc.getFontMetrics());
+		fonts.put(key, result);
 		return result;
 	}
+	
+	private static void disposeCaches(){
+		for(CachedFont f : fonts.values()){
+			f.font.dispose();
+		}
+		fonts.clear();
+		if(gc != null && !gc.isDisposed()){
+			gc.dispose();
+		}
+		gc = null;
+		device = null;
+	}
+
+	private static final class FontKey {
+		final String name;
+		final int size;
+		final int style;
+		
+		FontKey(String name, int size, int style){
+			this.name = name;
+			this.size = size;
+			this.style = style;
+		}
+		
+		@Override
+		public int hashCode() {
+			return (name.hashCode() * 31 + size) * 31 + style;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof FontKey)){
+				return false;
+			}
+			FontKey other = (FontKey) obj;
+			return size == other.size && style == other.style && name.equals(other.name);
+		}
+	}
+	
+	private static final class CachedFont {
+		final Font font;
+		final FontMetrics metrics;
+		final Map<String, Double> widths = new LinkedHashMap<String, Double>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+				return size() > MAX_WIDTHS_PER_FONT;
+			}
+		};
+		
+		CachedFont(Font font, FontMetrics metrics){
+			this.font = font;
+			this.metrics = metrics;
+		}
+	}
 
 	public static Color getRgbColor(int c) {
 		setGC();
@@ -115,6 +219,52 @@ public class SWTFontsAndColors {
 				FigureColorUtils.getGreen(c), FigureColorUtils.getBlue(c));
 	}
 
+	/**
+	 * Returns a shared color for the rgb part of c. Pooled colors belong to the pool and
+	 * must not be disposed by their users; they are disposed together with their display.
+	 */
+	public static Color getPooledRgbColor(int c) {
+		setGC();
+		return getPooledRgbColor(device, c);
+	}
+	
+	public static Color getPooledRgbColor(final Device dc, int c) {
+		Integer rgb = FigureColorUtils.withoutAlpha(c);
+		synchronized (colorPools) {
+			Map<Integer, Color> pool = colorPools.get(dc);
+			if(pool == null){
+				pool = new HashMap<Integer, Color>();
+				colorPools.put(dc, pool);
+				if(dc instanceof Display){
+					((Display) dc).disposeExec(new Runnable() {
+						@Override
+						public void run() {
+							disposeColorPool(dc);
+						}
+					});
+				}
+			}
+			Color result = pool.get(rgb);
+			if(result == null){
+				result = getRgbColor(dc, c);
+				pool.put(rgb, result);
+			}
+			return result;
+		}
+	}
+	
+	private static void disposeColorPool(Device dc){
+		Map<Integer, Color> pool;
+		synchronized (colorPools) {
+			pool = colorPools.remove(dc);
+		}
+		if(pool != null){
+			for(Color c : pool.values()){
+				c.dispose();
+			}
+		}
+	}
+
 	public static Color getColor(int which) {
 		setGC();
 		return device.getSystemColor(which);
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2013 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.library.vis.swt.applet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.rascalmpl.eclipse.library.vis.figure.Figure;
+import org.rascalmpl.eclipse.library.vis.figure.combine.Overlap;
+import org.rascalmpl.eclipse.library.vis.util.vector.Coordinate;
+import org.rascalmpl.eclipse.library.vis.util.vector.Rectangle;
+
+/**
+ * A uniform grid over the figures which handle input, such that the figures under the mouse
+ * are found without walking the whole figure tree. Every figure is put in the cells which
+ * overlap the intersection of its hit bounds and those of its ancestors, since the mouse has
+ * to be inside all of these. A query checks the candidates of one cell against the exact
+ * mouseInside of the figure and its ancestors, and returns them in the order of
+ * {@link Figure#getFiguresUnderMouse(Coordinate, List)}.
+ *
+ * The index is only valid for one layout, see {@link FigureSWTApplet#notifyLayoutChanged()}.
+ */
+public class FigureHitIndex {
+	private static final int MAX_CELLS_PER_SIDE = 256;
+
+	private final Path[] entries;
+	private final int[][] cells;
+	private final int columns, rows;
+	private final double left, top, cellWidth, cellHeight;
+	private int lastCandidates;
+
+	private FigureHitIndex(List<Path> entries){
+		this.entries = entries.toArray(new Path[entries.size()]);
+
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for(Path e : this.entries){
+			minX = Math.min(minX, e.minX);
+			minY = Math.min(minY, e.minY);
+			maxX = Math.max(maxX, e.maxX);
+			maxY = Math.max(maxY, e.maxY);
+		}
+
+		if(this.entries.length == 0){
+			minX = minY = maxX = maxY = 0;
+		}
+
+		int perSide = (int)Math.max(1, Math.min(MAX_CELLS_PER_SIDE, Math.ceil(Math.sqrt(this.entries.length))));
+		left = minX;
+		top = minY;
+		columns = rows = perSide;
+		cellWidth = Math.max((maxX - minX) / columns, Double.MIN_NORMAL);
+		cellHeight = Math.max((maxY - minY) / rows, Double.MIN_NORMAL);
+
+		int[] counts = new int[columns * rows];
+		for(Path e : this.entries){
+			for(int y = row(e.minY); y <= row(e.maxY); y++){
+				for(int x = column(e.minX); x <= column(e.maxX); x++){
+					counts[y * columns + x]++;
+				}
+			}
+		}
+
+		cells = new int[columns * rows][];
+		for(int i = 0 ; i < cells.length ; i++){
+			cells[i] = new int[counts[i]];
+			counts[i] = 0;
+		}
+
+		// entries are added in traversal order, so every cell is sorted on it
+		for(int i = 0 ; i < this.entries.length ; i++){
+			Path e = this.entries[i];
+			for(int y = row(e.minY); y <= row(e.maxY); y++){
+				for(int x = column(e.minX); x <= column(e.maxX); x++){
+					int cell = y * columns + x;
+					cells[cell][counts[cell]++] = i;
+				}
+			}
+		}
+	}
+
+	private int column(double x){
+		return Math.max(0, Math.min(columns - 1, (int)((x - left) / cellWidth)));
+	}
+
+	private int row(double y){
+		return Math.max(0, Math.min(rows - 1, (int)((y - top) / cellHeight)));
+	}
+
+	/**
+	 * Adds the figures under the mouse to result, from front to back.
+	 */
+	public void getFiguresUnderMouse(Coordinate c, List<Figure> result){
+		lastCandidates = 0;
+
+		if(entries.length == 0 || c.getX() < left || c.getY() < top
+				|| c.getX() > left + columns * cellWidth || c.getY() > top + rows * cellHeight){
+			return;
+		}
+
+		for(int i : cells[row(c.getY()) * columns + column(c.getX())]){
+			Path e = entries[i];
+			lastCandidates++;
+			if(e.contains(c) && e.figure.shapeContains(c)){
+				result.add(e.figure);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of figures which were checked by the last query
+	 */
+	public int getLastCandidates(){
+		return lastCandidates;
+	}
+
+	public int size(){
+		return entries.length;
+	}
+
+	public static FigureHitIndex build(Figure root, List<Overlap> overlaps){
+		Builder b = new Builder();
+		root.getInputFigures(b);
+		for(Overlap f : overlaps){
+			f.over.getInputFigures(b);
+		}
+		return new FigureHitIndex(b.entries);
+	}
+
+	/**
+	 * Collects the figures which handle input, see {@link Figure#getInputFigures(Builder)}.
+	 */
+	public static class Builder {
+		private final List<Path> entries = new ArrayList<Path>();
+		private Path path;
+
+		private Builder(){}
+
+		public void enter(Figure fig){
+			path = new Path(fig, path);
+		}
+
+		public void leave(){
+			path = path.parent;
+		}
+
+		/**
+		 * Adds the figure which was entered last.
+		 */
+		public void add(){
+			if(path.minX <= path.maxX && path.minY <= path.maxY){
+				entries.add(path);
+			}
+		}
+	}
+
+	private static class Path {
+		final Figure figure;
+		final Path parent;
+		final double minX, minY, maxX, maxY;
+
+		Path(Figure figure, Path parent){
+			this.figure = figure;
+			this.parent = parent;
+
+			Rectangle r = figure.getHitBounds();
+			double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY;
+			double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY;
+			if(r != null){
+				x1 = r.getLocation().getX();
+				y1 = r.getLocation().getY();
+				x2 = r.getRightDown().getX();
+				y2 = r.getRightDown().getY();
+			}
+			if(parent != null){
+				x1 = Math.max(x1, parent.minX);
+				y1 = Math.max(y1, parent.minY);
+				x2 = Math.min(x2, parent.maxX);
+				y2 = Math.min(y2, parent.maxY);
+			}
+			minX = x1; minY = y1; maxX = x2; maxY = y2;
+		}
+
+		boolean contains(Coordinate c){
+			for(Path p = this ; p != null ; p = p.parent){
+				if(!p.figure.mouseInside(c)){
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -36,6 +36,7 @@ import org.rascalmpl.eclipse.library.vis.figure.Figure;
 import org.rascalmpl.eclipse.library.vis.figure.FigureFactory;
 import org.rascalmpl.eclipse.library.vis.figure.combine.Overlap;
 import org.rascalmpl.eclipse.library.vis.figure.combine.containers.WhiteSpace;
+import org.rascalmpl.eclipse.library.vis.graphics.SVGGraphicsContext;
 import org.rascalmpl.eclipse.library.vis.graphics.SWTGraphicsContext;
 import org.rascalmpl.eclipse.library.vis.properties.IRunTimePropertyChanges;
 import org.rascalmpl.eclipse.library.vis.properties.PropertyManager;
@@ -127,13 +128,24 @@ public class FigureSWTApplet extends Composite
 
 			@Override
 			public void run() {
+				Rectangle damage = null;
+				boolean all = false;
 				for(Animation a : animations){
 					System.out.printf("Animating %d!\n", animations.size());
+					Figure animated = a.getAnimatedFigure();
+					Rectangle before = extentOf(animated);
 					a.animate();
+					Rectangle after = extentOf(animated);
+					if(before == null || after == null){
+						all = true;
+					} else {
+						damage = damage == null ? before.union(after) : damage.union(before).union(after);
+					}
 				}
 				
 				try {
-					redraw();
+					viewPortHandler.notifyFiguresMoved();
+					viewPortHandler.redraw(all ? null : damage);
 					for(FigureSWTApplet app : children){
 						app.redraw();
 					}
@@ -153,6 +165,7 @@ public class FigureSWTApplet extends Composite
 	public void triggerRecompute(){
 		redrawRequested = false;
 		busy = true;
+		inputHandler.notifyFigureChanging();
 		viewPortHandler.beforeInitialise();
 		overlapFigures.clear();
 		for(FigureSWTApplet child : children){
@@ -174,6 +187,34 @@ public class FigureSWTApplet extends Composite
 		}
 	}
 
+	private static Rectangle extentOf(Figure fig){
+		if(fig == null){
+			return null;
+		}
+		fig.updateDrawExtents();
+		return fig.getDrawExtent();
+	}
+	
+	/**
+	 * Requests to draw only the part of the view on which the figure is drawn, for changes which
+	 * do not affect the rest of the figure.
+	 */
+	public void requestRedraw(Figure changed) {
+		if(busy){
+			redrawRequested = true;
+		} else if(!isDisposed()){
+			viewPortHandler.notifyFiguresMoved();
+			viewPortHandler.redraw(extentOf(changed));
+		}
+	}
+	
+	/**
+	 * @return the average time to draw the whole view in nanoseconds, see {@link ViewPortHandler#measureFrameTime(int)}
+	 */
+	public long measureFrameTime(int frames){
+		return viewPortHandler.measureFrameTime(frames);
+	}
+
 	public void requestRedraw() {
 		if(busy){
 			redrawRequested = true;
@@ -212,6 +253,7 @@ public class FigureSWTApplet extends Composite
 		
 		gc.setBackground(getDisplay().getSystemColor(SWT.COLOR_WHITE));
 
+		figure.updateDrawExtents();
 		figure.draw(new Coordinate(1.0, 1.0), swtGC, new Rectangle(0, 0, figureWidth, figureHeight), new SWTElementsVisibilityManager().getVisibleSWTElementsVector());
 	
 		ImageLoader il = new ImageLoader();
@@ -219,6 +261,16 @@ public class FigureSWTApplet extends Composite
 		il.save(to, SWT.IMAGE_PNG);
 	}
 	
+	/**
+	 * Writes the whole figure as SVG, without drawing it to an image first.
+	 */
+	public void saveSVG(OutputStream to) {
+		SVGGraphicsContext svg = new SVGGraphicsContext(to, figure.size.getX(), figure.size.getY());
+		figure.updateDrawExtents();
+		figure.draw(new Coordinate(1.0, 1.0), svg, new Rectangle(0, 0, figure.size.getX(), figure.size.getY()), new SWTElementsVisibilityManager().getVisibleSWTElementsVector());
+		svg.dispose();
+	}
+	
 	public FigureExecutionEnvironment getExectutionEnv(){ 
 		return env;
 	}
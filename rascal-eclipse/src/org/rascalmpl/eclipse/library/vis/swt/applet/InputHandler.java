@@ -46,6 +46,7 @@ public class InputHandler implements MouseListener,MouseMoveListener, MouseTrack
 	private FigureExecutionEnvironment env;
 	private List<Overlap> overlapFigures; // this is silently mutated by the FigureSWTApplet
 	private FigureSWTApplet parent;
+	private FigureHitIndex hitIndex; // null while the layout is being computed
 	
 	public InputHandler(FigureSWTApplet parent, List<Overlap> overlapFigures){
 		figuresUnderMouse = new ArrayList<Figure>();
@@ -63,13 +64,27 @@ public class InputHandler implements MouseListener,MouseMoveListener, MouseTrack
 	}
 	
 	public void notifyFigureChanged(){
+		long startTime = System.nanoTime();
+		hitIndex = FigureHitIndex.build(figure, overlapFigures);
+		if(FigureExecutionEnvironment.profile){
+			System.out.printf("Hit index of %d figures took %f\n", hitIndex.size(), (System.nanoTime() - startTime) / 1000000.0);
+		}
 		handleMouseMove();
 	}
 	
+	public void notifyFigureChanging(){
+		hitIndex = null;
+	}
+	
 	private void setFiguresUnderMouse(){
 
 		figuresUnderMouse.clear();
 		
+		if(hitIndex != null){
+			hitIndex.getFiguresUnderMouse(mouseLocation, figuresUnderMouse);
+			return;
+		}
+		
 		figure.getFiguresUnderMouse(mouseLocation, figuresUnderMouse);
 		for(Overlap f : overlapFigures){
 			f.over.getFiguresUnderMouse(mouseLocation, figuresUnderMouse);
@@ -170,11 +185,16 @@ public class InputHandler implements MouseListener,MouseMoveListener, MouseTrack
 
 	@Override
 	public void mouseMove(MouseEvent e) {
+		long startTime = System.nanoTime();
 		mouseLocation.set(e.x,e.y);
 		
 		parent.translateFromViewPortToFigure(mouseLocation);
 		handleMouseMove();
 		
+		if(FigureExecutionEnvironment.profile){
+			System.out.printf("Mouse move took %f candidates %d under mouse %d\n", (System.nanoTime() - startTime) / 1000000.0,
+					hitIndex != null ? hitIndex.getLastCandidates() : -1, figuresUnderMouse.size());
+		}
 	}
 
 	@Override
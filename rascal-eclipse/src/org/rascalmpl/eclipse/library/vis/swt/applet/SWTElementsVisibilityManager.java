@@ -46,6 +46,21 @@ public class SWTElementsVisibilityManager {
 		visibleSWTElements.clear();
 	}
 
+	/**
+	 * After drawing only a part of the view the elements outside that part were not reported, 
+	 * so they can not be made invisible. The elements which were drawn are added to the previously
+	 * visible ones, such that they are made invisible once a full draw does not report them anymore.
+	 */
+	public void mergeVisibleElements(){
+		for(IHasSWTElement f : visibleSWTElements){
+			if(!prevVisibleSWTElements.contains(f)){
+				prevVisibleSWTElements.add(f);
+			}
+		}
+		Collections.sort(prevVisibleSWTElements, IHasSWTElement.ICanBeInvisibleComparator.instance);
+		visibleSWTElements.clear();
+	}
+
 	public void dispose() {
 	} 
 
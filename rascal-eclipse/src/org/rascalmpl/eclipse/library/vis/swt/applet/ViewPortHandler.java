@@ -9,11 +9,11 @@ package org.rascalmpl.eclipse.library.vis.swt.applet;
 
 import static org.rascalmpl.eclipse.library.vis.util.vector.Dimension.HOR_VER;
 
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.eclipse.swt.SWT;
@@ -65,6 +65,7 @@ public class ViewPortHandler implements SelectionListener, ControlListener, Pain
 	private SWTGraphicsContext gc;
 	private TransformMatrix topLevel;
 	private Rectangle viewPortRectangle;
+	private boolean drawExtentsValid; // see Figure.updateDrawExtents
 	
 	public ViewPortHandler(FigureSWTApplet parent, List<Overlap> overlapFigures){
 		this.parent = parent;
@@ -210,6 +211,7 @@ public class ViewPortHandler implements SelectionListener, ControlListener, Pain
 		}
 		scrollBarsVisible.set(major,false);
 		updateScrollBars();
+		drawExtentsValid = false;
 		parent.notifyLayoutChanged();
 		
 	}
@@ -241,6 +243,7 @@ public class ViewPortHandler implements SelectionListener, ControlListener, Pain
 		Rectangle part = getViewPortRectangle();
 		adjustOverlaps(part);
 		updateScrollBars();
+		drawExtentsValid = false;
 		parent.notifyLayoutChanged();
 	}
 
@@ -279,55 +282,132 @@ public class ViewPortHandler implements SelectionListener, ControlListener, Pain
 
 	@Override
 	public void paintControl(PaintEvent e) {
-		draw(e.gc);
+		draw(e.gc, new Rectangle(e.x, e.y, e.width, e.height));
 		parent.animate();
 	}
 	
-
+	/**
+	 * Figures have moved without a new layout, for example in an animation.
+	 */
+	public void notifyFiguresMoved(){
+		drawExtentsValid = false;
+	}
+	
+	/**
+	 * Requests a paint of the part of the view on which the figure is drawn.
+	 * 
+	 * @param extent an area on the figure, as returned by {@link Figure#getDrawExtent()}, or null for everything
+	 */
+	public void redraw(Rectangle extent){
+		if(extent == null){
+			parent.redraw();
+			return;
+		}
+		int x = FigureMath.floor(extent.getLocation().getX() - viewPortLocation.getX());
+		int y = FigureMath.floor(extent.getLocation().getY() - viewPortLocation.getY());
+		int right = FigureMath.ceil(extent.getRightDown().getX() - viewPortLocation.getX());
+		int bottom = FigureMath.ceil(extent.getRightDown().getY() - viewPortLocation.getY());
+		parent.redraw(x, y, right - x, bottom - y, false);
+	}
 	
 	public void draw(GC swtGC){
+		draw(swtGC, null);
+	}
+	
+	/**
+	 * Draws the damaged part of the view into the back buffer, and shows the back buffer. The rest 
+	 * of the back buffer still shows the figure as it was drawn before, since all other changes 
+	 * damage the whole view.
+	 * 
+	 * @param damage the part of the view to draw, in view coordinates, or null for everything
+	 */
+	public void draw(GC swtGC, Rectangle damage){
 		if(viewPortSize.getX() <= 0 || viewPortSize.getY() <= 0){
 			System.out.printf("NOT DRAWING %s\n",this);
 			return;
 		}
 		long startTime = System.nanoTime();
-		setBackBuffer();
+		if(setBackBuffer()){
+			damage = null;
+		}
 		try{
 			gc.setGC(new GC(backbuffer));
 		} catch(IllegalArgumentException e){
 			makeNewBackBuffer();
+			damage = null;
 			gc.setGC(new GC(backbuffer));
 		}
 		
 		gc.getGC().setBackground(parent.getDisplay().getSystemColor(SWT.COLOR_WHITE));
 		
-		Rectangle part = getViewPortRectangle();
-		gc.getGC().fillRectangle(0, 0, FigureMath.ceil(part.getSize().getX()), FigureMath.ceil(part.getSize().getY()));
-		gc.translate(-part.getLocation().getX(), -part.getLocation().getY());
+		Rectangle view = getViewPortRectangle();
+		Rectangle part = view;
+		boolean partial = damage != null && !damage.contains(new Rectangle(0, 0, view.getSize().getX(), view.getSize().getY()));
+		if(partial){
+			gc.getGC().setClipping(FigureMath.floor(damage.getLocation().getX()), FigureMath.floor(damage.getLocation().getY()), 
+					FigureMath.ceil(damage.getSize().getX()), FigureMath.ceil(damage.getSize().getY()));
+			gc.getGC().fillRectangle(FigureMath.floor(damage.getLocation().getX()), FigureMath.floor(damage.getLocation().getY()), 
+					FigureMath.ceil(damage.getSize().getX()), FigureMath.ceil(damage.getSize().getY()));
+			part = new Rectangle(damage.getLocation().getX() + view.getLocation().getX(), damage.getLocation().getY() + view.getLocation().getY(), 
+					damage.getSize().getX(), damage.getSize().getY());
+		} else {
+			gc.getGC().fillRectangle(0, 0, FigureMath.ceil(part.getSize().getX()), FigureMath.ceil(part.getSize().getY()));
+		}
+		gc.translate(-view.getLocation().getX(), -view.getLocation().getY());
 
-		
+		if(!drawExtentsValid){
+			figure.updateDrawExtents();
+			drawExtentsValid = true;
+		}
 		figure.draw(zoom, gc, part,swtVisiblityMangager.getVisibleSWTElementsVector());
 		for(Overlap f : overlapFigures){
-			if(f.over.overlapsWith(part)){
+			// overlaps are moved by adjustOverlaps
+			f.over.updateDrawExtents();
+			if(f.over.mayBeVisibleIn(part)){
 				f.over.draw(zoom, gc, part, swtVisiblityMangager.getVisibleSWTElementsVector());
 			}
 		}
-		gc.translate(part.getLocation().getX(), part.getLocation().getY());
+		gc.translate(view.getLocation().getX(), view.getLocation().getY());
 		
 
 		
 		gc.dispose();
 		swtGC.drawImage(backbuffer, 0, 0);
 	
-		swtVisiblityMangager.makeOffscreenElementsInvisble();
-		zorderManager.draw(part);
+		if(partial){
+			swtVisiblityMangager.mergeVisibleElements();
+		} else {
+			swtVisiblityMangager.makeOffscreenElementsInvisble();
+		}
+		zorderManager.draw(view);
 		
 		if(FigureExecutionEnvironment.profile) {
 			long rascalTime = parent.getCallBackEnv().getAndResetRascalTime();
 			rascalTime/=1000000;
 			long drawTime = System.nanoTime() - startTime;
 			drawTime/=1000000;
-			System.out.printf("Drawing (part) took %d rascalTime %d %f\n", drawTime,rascalTime,(double)rascalTime / (double) drawTime);
+			System.out.printf("Drawing (%s) took %d rascalTime %d %f\n", partial ? part : "all", drawTime,rascalTime,(double)rascalTime / (double) drawTime);
+		}
+	}
+	
+	/**
+	 * Draws the whole view a number of times into an image, for {@link FigureSWTApplet#measureFrameTime(int)}.
+	 * 
+	 * @return the average time of a frame in nanoseconds
+	 */
+	public long measureFrameTime(int frames){
+		Image screen = new Image(parent.getDisplay(), FigureMath.ceil(viewPortSize.getX()) + 1, FigureMath.ceil(viewPortSize.getY()) + 1);
+		GC screenGC = new GC(screen);
+		try{
+			draw(screenGC); // warm up
+			long start = System.nanoTime();
+			for(int i = 0 ; i < frames ; i++){
+				draw(screenGC);
+			}
+			return (System.nanoTime() - start) / Math.max(1, frames);
+		} finally {
+			screenGC.dispose();
+			screen.dispose();
 		}
 	}
 
@@ -362,10 +442,15 @@ public class ViewPortHandler implements SelectionListener, ControlListener, Pain
 
 	
 
-	private void setBackBuffer(){
+	/**
+	 * @return true if there is a new back buffer, which has to be drawn completely
+	 */
+	private boolean setBackBuffer(){
 		if(backbuffer == null || backbuffer.isDisposed() || backbuffer.getBounds().width != viewPortSize.getX() +1 || backbuffer.getBounds().height != viewPortSize.getY()+1){
 			makeNewBackBuffer();
+			return true;
 		}
+		return false;
 	}
 	
 	private void makeNewBackBuffer(){
@@ -415,23 +500,25 @@ public class ViewPortHandler implements SelectionListener, ControlListener, Pain
 	public void makeScreenShot() {
 		FileDialog f = new FileDialog(parent.getShell(), SWT.SAVE);
 		f.setText("Select where to save your screenshot.");
+		f.setFilterExtensions(new String[] { "*.png", "*.svg" });
 		String filepath = f.open();
 		if(filepath == null){
 			return;
 		}
 
 		
-		if(!filepath.endsWith(".png")){
+		boolean svg = filepath.endsWith(".svg");
+		if(!svg && !filepath.endsWith(".png")){
 			filepath+=".png";
 		}
-		try{
-			OutputStream to = new FileOutputStream(filepath);
-			writeScreenShot(to);
-			to.close();
-		} catch(FileNotFoundException e){
-			PrintWriter stdErr = this.parent.getCallBackEnv().getRascalContext().getStdErr();
-			stdErr.printf("Could not write to " + filepath + "\n Reason " + e.getMessage());
-		} catch (IOException e) {
+		try(OutputStream to = new FileOutputStream(filepath)){
+			if(svg){
+				// the whole figure, not only the visible part; the SVG context reports write errors unchecked
+				parent.saveSVG(to);
+			} else {
+				writeScreenShot(to);
+			}
+		} catch (IOException | UncheckedIOException e) {
 			PrintWriter stdErr = this.parent.getCallBackEnv().getRascalContext().getStdErr();
 			stdErr.printf("Could not write to " + filepath + "\n Reason " + e.getMessage());
 		}
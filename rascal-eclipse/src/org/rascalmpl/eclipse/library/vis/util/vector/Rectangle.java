@@ -68,6 +68,14 @@ public final class Rectangle{
 		return rightDown;
 	}
 	
+	public Rectangle union(Rectangle rhs){
+		double left = Math.min(location.getX(), rhs.location.getX());
+		double top = Math.min(location.getY(), rhs.location.getY());
+		double right = Math.max(rightDown.getX(), rhs.rightDown.getX());
+		double bottom = Math.max(rightDown.getY(), rhs.rightDown.getY());
+		return new Rectangle(left, top, right - left, bottom - top);
+	}
+	
 	public String toString(){
 		return String.format("Rectangle(x:%f y:%f w: %f h: %f)",location.getX(),location.getY(),size.getX(),size.getY());
 	}
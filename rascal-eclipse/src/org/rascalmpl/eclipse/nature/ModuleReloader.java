@@ -12,8 +12,11 @@
 package org.rascalmpl.eclipse.nature;
 
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -26,9 +29,11 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.IRascalResources;
 import org.rascalmpl.eclipse.util.ResourcesToModules;
 import org.rascalmpl.interpreter.Evaluator;
+import org.rascalmpl.interpreter.env.GlobalEnvironment;
 import org.rascalmpl.uri.URIUtil;
 
 public class ModuleReloader{
@@ -49,7 +54,18 @@ public class ModuleReloader{
 	public void updateModules(IProgressMonitor monitor, IWarningHandler handler, Set<String> ignored){
 		moduleChangeListener.updateModules(monitor, handler, ignored);
 	}
-
+	
+	/**
+	 * A module which fails to reload, for instance because of a syntax error, is reported by the
+	 * evaluator and not kept dirty; it is only reloaded again when its file changes again. So this
+	 * stays cheap to check before every command, see RascalTerminalConnector.
+	 * 
+	 * @return whether modules have changed since the last {@link #updateModules}
+	 */
+	public boolean isDirty() {
+		return moduleChangeListener.isDirty();
+	}
+	
 	public synchronized void destroy(){
 		if(destroyed) return;
 		
@@ -121,7 +137,17 @@ public class ModuleReloader{
 		}
 	}
 	
+	/**
+	 * Collects the changed modules and reloads them into the evaluator on request. Before the
+	 * evaluator is locked, the modules which depend on the changed ones are found from the imports
+	 * and extends of the loaded module environments. Changed modules which are not loaded are 
+	 * dropped, they will be read fresh on their first import, so when nothing loaded depends on
+	 * a change the evaluator is not locked at all. The evaluator then reloads only the changed
+	 * modules and the modules which extend them, and re-links the modules which import them.
+	 * Reloads which lock the evaluator for long are reported in the error log.
+	 */
 	private static class RascalModuleChangeListener implements IModuleChangedListener{
+		private static final long REPORTED_LOCK_TIME = TimeUnit.MILLISECONDS.toNanos(200);
 		private final Set<String> dirtyModules = new HashSet<String>();
 		private final Evaluator eval;
 		private final IWarningHandler warnings;
@@ -138,19 +164,80 @@ public class ModuleReloader{
 			}
 		}
 		
+		public boolean isDirty() {
+			synchronized (dirtyModules) {
+				return !dirtyModules.isEmpty();
+			}
+		}
+		
 		public void updateModules(IProgressMonitor monitor, IWarningHandler handler, Set<String> ignored) {
+			IWarningHandler warn = handler == null ? warnings : handler;
+			Set<String> todo = new HashSet<>();
+			
 			synchronized (dirtyModules) {
-				synchronized(eval){
-					Set<String> todo = new HashSet<>();
-					todo.addAll(dirtyModules);
-					boolean changed = todo.removeAll(ignored);
-					eval.reloadModules(new RascalMonitor(monitor, handler == null ? warnings : handler) , Collections.unmodifiableSet(todo), URIUtil.rootLocation("console"));
-					dirtyModules.clear();
-					if (changed) {
-						dirtyModules.addAll(ignored);
-					}
+				todo.addAll(dirtyModules);
+				todo.removeAll(ignored);
+				dirtyModules.retainAll(ignored);
+			}
+			
+			if (todo.isEmpty()) {
+				return;
+			}
+			
+			GlobalEnvironment heap = eval.getHeap();
+			Set<String> affected = null;
+			
+			try {
+				affected = dependents(heap, todo);
+				
+				if (affected.isEmpty()) {
+					// modules which are not loaded will be read fresh on their first import
+					return;
+				}
+			}
+			catch (ConcurrentModificationException e) {
+				// the evaluator was loading modules meanwhile, look again while it is locked
+			}
+			
+			synchronized(eval){
+				long start = System.nanoTime();
+				
+				if (affected == null) {
+					affected = dependents(heap, todo);
+				}
+				
+				todo.removeIf(module -> !heap.existsModule(module));
+				
+				if (todo.isEmpty()) {
+					return;
+				}
+				
+				eval.reloadModules(new RascalMonitor(monitor, warn) , Collections.unmodifiableSet(todo), URIUtil.rootLocation("console"));
+				
+				long time = System.nanoTime() - start;
+				if (time > REPORTED_LOCK_TIME) {
+					Activator.logInfo("reloading " + todo + " (" + affected.size() + " modules affected) locked the evaluator for " + TimeUnit.NANOSECONDS.toMillis(time) + "ms");
+				}
+			}
+		}
+		
+		/**
+		 * @return the given modules which are loaded, and the loaded modules which import or extend them, transitively
+		 */
+		private static Set<String> dependents(GlobalEnvironment heap, Set<String> modules) {
+			Set<String> found = new HashSet<>();
+			LinkedList<String> todo = new LinkedList<>(modules);
+			
+			while (!todo.isEmpty()) {
+				String module = todo.pop();
+				
+				if (heap.existsModule(module) && found.add(module)) {
+					todo.addAll(heap.getImportingModules(module));
+					todo.addAll(heap.getExtendingModules(module));
 				}
 			}
+			
+			return found;
 		}
 	}
 }
@@ -27,6 +27,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -43,6 +45,7 @@ import org.osgi.framework.Bundle;
 import org.osgi.framework.wiring.BundleWire;
 import org.osgi.framework.wiring.BundleWiring;
 import org.rascalmpl.eclipse.Activator;
+import org.rascalmpl.eclipse.plugins.PluginLoader;
 import org.rascalmpl.eclipse.util.RascalEclipseManifest;
 import org.rascalmpl.interpreter.Evaluator;
 import org.rascalmpl.interpreter.env.GlobalEnvironment;
@@ -58,10 +61,11 @@ import io.usethesource.impulse.runtime.RuntimePlugin;
 
 public class ProjectEvaluatorFactory {
 	
-	private final WeakHashMap<IProject, Evaluator> parserForProject = new WeakHashMap<IProject, Evaluator>();
+	private final WeakHashMap<IProject, CompletableFuture<Evaluator>> parserForProject = new WeakHashMap<IProject, CompletableFuture<Evaluator>>();
 	private final WeakHashMap<IProject, ModuleReloader> reloaderForProject = new WeakHashMap<IProject, ModuleReloader>();
 	private final PrintWriter out;
 	private final PrintWriter err;
+	private final WarmEvaluatorPool warmEvaluators;
 	
 	private ProjectEvaluatorFactory() {
 		try {
@@ -71,6 +75,15 @@ public class ProjectEvaluatorFactory {
 			Activator.getInstance().logException("internal error", e);
 			throw new RuntimeException("???", e);
 		}
+		
+		warmEvaluators = new WarmEvaluatorPool(out, err);
+	}
+	
+	/**
+	 * Lets evaluators be prepared for the given number of plugins which are about to start.
+	 */
+	public void expectEvaluators(int count) {
+		warmEvaluators.expect(count);
 	}
 	
 	private static class InstanceHolder {
@@ -81,12 +94,12 @@ public class ProjectEvaluatorFactory {
 		return InstanceHolder.sInstance;
 	}
 	
-	public void clear() {
+	public synchronized void clear() {
 		reloaderForProject.clear();
 		parserForProject.clear();
 	}
 	
-	public void resetParser(IProject project) {
+	public synchronized void resetParser(IProject project) {
 		parserForProject.remove(project);
 		reloaderForProject.remove(project);
 	}
@@ -98,8 +111,7 @@ public class ProjectEvaluatorFactory {
 	
 	public Evaluator getEvaluator(IProject project) {
 		Evaluator parser = getOrCreateEvaluator(project);
-		assert reloaderForProject.get(project) != null;
-		reloaderForProject.get(project).updateModules(new NullProgressMonitor(), new WarningsToPrintWriter(parser.getStdErr()), Collections.emptySet());
+		getReloader(project).updateModules(new NullProgressMonitor(), new WarningsToPrintWriter(parser.getStdErr()), Collections.emptySet());
 		return parser;
 	}
 	/**
@@ -107,29 +119,86 @@ public class ProjectEvaluatorFactory {
 	 */
 	public Evaluator getEvaluator(IProject project, IWarningHandler warnings) {
 		Evaluator parser = getOrCreateEvaluator(project);
-		assert reloaderForProject.get(project) != null;
-		reloaderForProject.get(project).updateModules(new NullProgressMonitor(), warnings, Collections.emptySet());
+		getReloader(project).updateModules(new NullProgressMonitor(), warnings, Collections.emptySet());
 		return parser;
 	}
 	
 	public void reloadProject(IProject project, IWarningHandler handler, Set<String> ignored) {
-		ModuleReloader reloader = reloaderForProject.get(project);
+		ModuleReloader reloader = getReloader(project);
 		
 		if (reloader != null) {
 			reloader.updateModules(new NullProgressMonitor(), handler, ignored);
 		}
 	}
 
+	private synchronized ModuleReloader getReloader(IProject project) {
+		return reloaderForProject.get(project);
+	}
+
+	/**
+	 * Only the maps are guarded by this factory: the evaluator itself is created outside of the lock,
+	 * such that plugins of different projects can start in parallel. Who asks for the same project 
+	 * meanwhile waits for that evaluator.
+	 */
 	private Evaluator getOrCreateEvaluator(IProject project) {
-		Evaluator parser = parserForProject.get(project);
+		CompletableFuture<Evaluator> future;
+		boolean create = false;
 		
-		if (parser == null) {
-			parser = createProjectEvaluator(project, err, out);
-			reloaderForProject.put(project, new ModuleReloader(project, parser, new WarningsToPrintWriter(parser.getStdErr())));
-			parserForProject.put(project, parser);
+		synchronized (this) {
+			future = parserForProject.get(project);
+			
+			if (future == null) {
+				future = new CompletableFuture<Evaluator>();
+				parserForProject.put(project, future);
+				create = true;
+			}
 		}
 		
-		return parser;
+		if (create) {
+			try {
+				Evaluator parser = createSharedEvaluator(project);
+				ModuleReloader reloader = new ModuleReloader(project, parser, new WarningsToPrintWriter(parser.getStdErr()));
+				
+				synchronized (this) {
+					reloaderForProject.put(project, reloader);
+				}
+				
+				future.complete(parser);
+				return parser;
+			}
+			catch (RuntimeException | Error e) {
+				synchronized (this) {
+					parserForProject.remove(project, future);
+				}
+				
+				future.completeExceptionally(e);
+				throw e;
+			}
+		}
+		
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+	
+	private Evaluator createSharedEvaluator(IProject project) {
+		Evaluator parser = project != null ? warmEvaluators.take(project) : null;
+		
+		if (parser != null) {
+			// the standard configuration was done by the pool
+			Activator.getInstance().checkRascalRuntimePreconditions(project);
+			addProjectsToSearchPath(project, parser);
+			configureProjectClassPath(project, parser);
+			return parser;
+		}
+		
+		return createProjectEvaluator(project, err, out);
 	}
 
 	/**
@@ -144,6 +213,14 @@ public class ProjectEvaluatorFactory {
 	}
 	
 	public Evaluator getBundleEvaluator(Bundle bundle) {
+	    Evaluator warm = warmEvaluators.take(bundle);
+	    
+	    if (warm != null) {
+	        // the standard configuration was done by the pool
+	        configure(bundle, warm, new HashSet<String>());
+	        return warm;
+	    }
+	    
 	    GlobalEnvironment heap = new GlobalEnvironment();
 	    Evaluator parser = new Evaluator(ValueFactoryFactory.getValueFactory(), err, out, new ModuleEnvironment("$parser$", heap), heap);
 	    initializeBundleEvaluator(bundle, parser);
@@ -169,25 +246,31 @@ public class ProjectEvaluatorFactory {
 	 */
 	public void configure(IProject project, Evaluator evaluator) {
 		if (project != null) {
-			try {
-			    
-				addProjectToSearchPath(project, evaluator);
-				
-				IProject[] projects = project.getReferencedProjects();
-				for (IProject ref : projects) {
-					addProjectToSearchPath(ref, evaluator);
-				}
-			} 
-			catch (URISyntaxException usex) {
-				Activator.getInstance().logException("could not construct search path", usex);
-			} 
-			catch (CoreException e) {
-				Activator.getInstance().logException("could not construct search path", e);
-			}
+			addProjectsToSearchPath(project, evaluator);
 		}
 		
 		configure(evaluator);
-
+		configureProjectClassPath(project, evaluator);
+	}
+	
+	private static void addProjectsToSearchPath(IProject project, Evaluator evaluator) {
+		try {
+			addProjectToSearchPath(project, evaluator);
+			
+			IProject[] projects = project.getReferencedProjects();
+			for (IProject ref : projects) {
+				addProjectToSearchPath(ref, evaluator);
+			}
+		} 
+		catch (URISyntaxException usex) {
+			Activator.getInstance().logException("could not construct search path", usex);
+		} 
+		catch (CoreException e) {
+			Activator.getInstance().logException("could not construct search path", e);
+		}
+	}
+	
+	private void configureProjectClassPath(IProject project, Evaluator evaluator) {
 		try {
 			configureClassPath(project, evaluator); 
 		}
@@ -252,18 +335,27 @@ public class ProjectEvaluatorFactory {
       return; // this may happen when nobody extends this point.
     }
     
-    for (IExtension element : extensionPoint.getExtensions()) {
+    PluginLoader<Bundle> loader = new PluginLoader<>("library plugin");
+    RascalEclipseManifest mf = new RascalEclipseManifest();
+    
+    IExtension[] extensions = extensionPoint.getExtensions();
+    for (IExtension element : extensions) {
       String name = element.getContributor().getName();
       Bundle bundle = Platform.getBundle(name);
+      loader.add(name, bundle, mf.getRequiredBundles(bundle));
+    }
+    
+    warmEvaluators.expect(extensions.length);
+    
+    loader.run(bundle -> {
       Evaluator bundleEval = getBundleEvaluator(bundle);
       
       // first load the other plugins
-      // TODO: support true dependencies
       configureRascalLibraryPlugins(bundleEval);
       
       // then run the main of the current one
       runLibraryPluginMain(bundleEval, bundle);
-    } 
+    });
   }
 	
 	public static void configureRascalLibraryPlugins(Evaluator evaluator) {
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2009-2015 CWI
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+*******************************************************************************/
+package org.rascalmpl.eclipse.nature;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.osgi.framework.Bundle;
+import org.rascalmpl.eclipse.Activator;
+import org.rascalmpl.eclipse.IRascalResources;
+import org.rascalmpl.eclipse.util.RascalEclipseManifest;
+import org.rascalmpl.interpreter.Evaluator;
+import org.rascalmpl.interpreter.env.GlobalEnvironment;
+import org.rascalmpl.interpreter.env.ModuleEnvironment;
+import org.rascalmpl.values.ValueFactoryFactory;
+
+/**
+ * Prepares evaluators which have the standard configuration of {@link ProjectEvaluatorFactory#configure(Evaluator)}
+ * and which have already loaded the most used library modules into their heap. Bundle evaluators are configured
+ * with the same search path order, so they can start from such an evaluator instead of parsing the library again.
+ * 
+ * The pool only prepares as many evaluators as the plugins which start up {@link #expect} to ask for, a few at a time
+ * in the background. Every request, warm or not, lowers that number, and evaluators which are still idle a while
+ * after the last request are dropped, such that their heaps do not stay around for the rest of the session.
+ *
+ * Project evaluators put their source roots before the library on the search path, and a warm evaluator can only
+ * add them after it. That only makes a difference for a module name which is found on both, so a project gets 
+ * a warm evaluator when none of its modules (or those of its referenced projects) can be found on the warm search path.
+ */
+public class WarmEvaluatorPool {
+	private static final int MAX_WARMING = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	private static final long IDLE_TIMEOUT = 60 * 1000;
+	private static final String[] WARM_MODULES = { "Exception", "IO", "List", "Set", "Map", "Node", "Relation", "String", "ParseTree" };
+
+	private final BlockingQueue<Evaluator> ready = new LinkedBlockingQueue<Evaluator>();
+	private final AtomicInteger warming = new AtomicInteger();
+	private final AtomicInteger expected = new AtomicInteger();
+	private final PrintWriter out;
+	private final PrintWriter err;
+	private final Job drop = new Job("Dropping idle Rascal evaluators") {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			expected.set(0);
+			ready.clear();
+			return Status.OK_STATUS;
+		}
+	};
+
+	public WarmEvaluatorPool(PrintWriter out, PrintWriter err) {
+		this.out = out;
+		this.err = err;
+		drop.setSystem(true);
+	}
+
+	/**
+	 * Prepares evaluators for the given number of requests which are about to come.
+	 */
+	public void expect(int requests) {
+		expected.addAndGet(requests);
+		refill();
+		dropLater();
+	}
+
+	/**
+	 * @return a warm evaluator for the bundle, or null if none is ready or the bundle would see other versions of the warm modules
+	 */
+	public Evaluator take(Bundle bundle) {
+		requested();
+
+		if (shadowsWarmModules(bundle, new HashSet<String>())) {
+			return null;
+		}
+
+		return ready.poll();
+	}
+
+	private void requested() {
+		expected.updateAndGet(n -> Math.max(0, n - 1));
+		dropLater();
+	}
+
+	private void dropLater() {
+		drop.cancel();
+		drop.schedule(IDLE_TIMEOUT);
+	}
+
+	private void refill() {
+		while (true) {
+			int pending = warming.get();
+
+			if (ready.size() + pending >= expected.get() || pending >= MAX_WARMING) {
+				return;
+			}
+
+			if (warming.compareAndSet(pending, pending + 1)) {
+				Job job = new Job("Preparing Rascal evaluator") {
+					@Override
+					protected IStatus run(IProgressMonitor monitor) {
+						try {
+							Evaluator eval = warm();
+
+							if (ready.size() < expected.get()) {
+								// otherwise it was not needed anymore, or dropped meanwhile
+								ready.add(eval);
+							}
+						}
+						catch (Throwable e) {
+							Activator.log("could not prepare a Rascal evaluator", e);
+						}
+						finally {
+							warming.decrementAndGet();
+						}
+
+						// the next one, if still needed
+						refill();
+						return Status.OK_STATUS;
+					}
+				};
+
+				job.setSystem(true);
+				job.setPriority(Job.DECORATE);
+				job.schedule();
+			}
+		}
+	}
+
+	private Evaluator warm() {
+		GlobalEnvironment heap = new GlobalEnvironment();
+		ModuleEnvironment root = new ModuleEnvironment("$parser$", heap);
+		Evaluator eval = new Evaluator(ValueFactoryFactory.getValueFactory(), err, out, root, heap);
+		ProjectEvaluatorFactory.configure(eval);
+
+		// the modules are loaded into the heap, but not imported into the root environment
+		eval.setCurrentEnvt(new ModuleEnvironment("$warmup$", heap));
+		try {
+			for (String module : WARM_MODULES) {
+				try {
+					eval.doImport(null, module);
+				}
+				catch (Throwable e) {
+					Activator.log("could not preload " + module, e);
+				}
+			}
+		}
+		finally {
+			eval.setCurrentEnvt(root);
+		}
+
+		return eval;
+	}
+
+	/**
+	 * @return a warm evaluator for the project, or null if none is ready or the order of the search path would make a difference
+	 */
+	public Evaluator take(IProject project) {
+		requested();
+
+		// all warm evaluators have the same search path, so any of them can answer the check
+		Evaluator any = ready.peek();
+
+		if (any == null) {
+			return null;
+		}
+
+		try {
+			if (shadowsSearchPath(project, any)) {
+				return null;
+			}
+		}
+		catch (CoreException e) {
+			Activator.log("could not check the modules of " + project.getName(), e);
+			return null;
+		}
+
+		return ready.poll();
+	}
+
+	private static boolean shadowsSearchPath(IProject project, Evaluator eval) throws CoreException {
+		List<IProject> projects = new ArrayList<IProject>();
+		projects.add(project);
+		projects.addAll(Arrays.asList(project.getReferencedProjects()));
+		RascalEclipseManifest mf = new RascalEclipseManifest();
+
+		for (IProject p : projects) {
+			if (!p.isOpen()) {
+				continue;
+			}
+
+			if (!isEmpty(mf.getRequiredBundles(p)) || !isEmpty(mf.getRequiredLibraries(p))) {
+				// these would come before the library too, and their modules are not listed here
+				return true;
+			}
+
+			for (String root : mf.getSourceRoots(p)) {
+				IResource folder = p.findMember(root);
+
+				if (folder != null && shadows(folder, folder.getFullPath(), eval)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean shadows(IResource resource, final IPath root, final Evaluator eval) throws CoreException {
+		final boolean[] found = { false };
+
+		resource.accept(new IResourceVisitor() {
+			@Override
+			public boolean visit(IResource resource) throws CoreException {
+				if (found[0]) {
+					return false;
+				}
+
+				if (resource instanceof IFile && IRascalResources.RASCAL_EXT.equals(resource.getFileExtension())) {
+					String module = resource.getFullPath().makeRelativeTo(root).removeFileExtension().toString().replaceAll("/", "::");
+					found[0] = eval.getRascalResolver().resolveModule(module) != null;
+					return false;
+				}
+
+				return true;
+			}
+		});
+
+		return found[0];
+	}
+
+	private static boolean isEmpty(List<String> list) {
+		return list == null || list.isEmpty();
+	}
+
+	private static boolean shadowsWarmModules(Bundle bundle, Set<String> seen) {
+		if (bundle == null || !seen.add(bundle.getSymbolicName())) {
+			return false;
+		}
+
+		RascalEclipseManifest mf = new RascalEclipseManifest();
+		List<String> roots = mf.getSourceRoots(bundle);
+
+		if (roots != null) {
+			for (String root : roots) {
+				for (String module : WARM_MODULES) {
+					if (bundle.getEntry("/" + root.trim() + "/" + module.replaceAll("::", "/") + ".rsc") != null) {
+						return true;
+					}
+				}
+			}
+		}
+
+		List<String> required = mf.getRequiredBundles(bundle);
+		if (required != null) {
+			for (String name : required) {
+				if (shadowsWarmModules(Platform.getBundle(name), seen)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
@@ -7,6 +7,7 @@ import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jface.viewers.StyledString;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.PlatformUI;
+import org.rascalmpl.eclipse.navigator.NavigatorContentProvider.Loading;
 import org.rascalmpl.eclipse.navigator.NavigatorContentProvider.SearchPath;
 import org.rascalmpl.eclipse.navigator.NavigatorContentProvider.URIContent;
 
@@ -20,6 +21,9 @@ public class NavigatorContentLabelProvider extends JavaElementLabelProvider {
     else if (element instanceof SearchPath) {
     	return "search path";
     }
+    else if (element instanceof Loading) {
+    	return element.toString();
+    }
     else {
       return super.getText(element);
     }
@@ -36,6 +40,9 @@ public class NavigatorContentLabelProvider extends JavaElementLabelProvider {
     else if (element instanceof SearchPath) {
         return new StyledString(getText(element));
     }
+    else if (element instanceof Loading) {
+        return new StyledString(getText(element), StyledString.QUALIFIER_STYLER);
+    }
     
     return super.getStyledText(element);
   }
@@ -45,10 +52,14 @@ public class NavigatorContentLabelProvider extends JavaElementLabelProvider {
 	  if (element instanceof SearchPath) {
 		  return JavaUI.getSharedImages().getImage(ISharedImages.IMG_OBJS_JAR_WITH_SOURCE);
 	  }
+	  if (element instanceof Loading) {
+		  return null;
+	  }
 	  if (element instanceof URIContent) {
 		  URIContent curr = (URIContent) element;
 
-		  if (curr.isDirectory()) {
+		  // entries know whether they are folders; roots are not asked on the UI thread
+		  if (curr.mayBeDirectory()) {
 			  if (curr.isRoot()) {
 				  return JavaUI.getSharedImages().getImage(ISharedImages.IMG_OBJS_JAR_WITH_SOURCE);
 			  }
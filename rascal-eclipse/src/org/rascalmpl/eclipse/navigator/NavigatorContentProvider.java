@@ -1,9 +1,14 @@
 package org.rascalmpl.eclipse.navigator;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IProject;
@@ -18,7 +23,9 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
@@ -29,6 +36,7 @@ import org.eclipse.ui.progress.UIJob;
 import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.IRascalResources;
 import org.rascalmpl.eclipse.nature.ProjectEvaluatorFactory;
+import org.rascalmpl.eclipse.util.RascalEclipseManifest;
 import org.rascalmpl.interpreter.load.RascalSearchPath;
 import org.rascalmpl.uri.URIResolverRegistry;
 import org.rascalmpl.uri.URIStorage;
@@ -37,10 +45,34 @@ import org.rascalmpl.value.ISourceLocation;
 
 public class NavigatorContentProvider implements ITreeContentProvider, IResourceChangeListener,
 	IResourceDeltaVisitor {
+  private static final long REFRESH_DELAY = 100;
+  
   public TreeViewer _viewer;
+  /** the listings of search path folders, which are read in the background and dropped when their project changes */
+  private final Map<ISourceLocation, URIContent.Listing> listings = new ConcurrentHashMap<>();
+  private final Map<IProject, List<ISourceLocation>> searchPaths = new ConcurrentHashMap<>();
+  private final Set<Object> loading = ConcurrentHashMap.newKeySet();
+  private final Set<Object> toRefresh = new HashSet<>();
+  private final UIJob refreshJob = new UIJob("Refresh viewer") { //$NON-NLS-1$
+    public IStatus runInUIThread(IProgressMonitor monitor) {
+      Object[] elements;
+      synchronized (toRefresh) {
+        elements = toRefresh.toArray();
+        toRefresh.clear();
+      }
+      
+      if (_viewer != null && !_viewer.getControl().isDisposed()) {
+        for (Object element : elements) {
+          _viewer.refresh(element);
+        }
+      }
+      return Status.OK_STATUS;
+    }
+  };
 
   public NavigatorContentProvider() {
 	  super();
+	  refreshJob.setSystem(true);
 	  ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
   }
   
@@ -118,13 +150,26 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
         return ((IContainer) parentElement).members();
       }
       else if (parentElement instanceof SearchPath) {
-    	  return ((SearchPath) parentElement).getSearchPath().toArray();
+        SearchPath path = (SearchPath) parentElement;
+        List<ISourceLocation> roots = searchPaths.get(path.getProject());
+        
+        if (roots == null) {
+          load(path, () -> searchPaths.put(path.getProject(), path.getSearchPathLocations()));
+          return new Object[] { new Loading() };
+        }
+        
+        return roots.stream().map(root -> new URIContent(root, path.getProject(), true)).toArray();
       }
       else if (parentElement instanceof URIContent) {
-    	  URIContent storage = (URIContent) parentElement;
-    	  if (storage.isDirectory()) {
-    		  return storage.listEntries();
-    	  }
+        URIContent storage = (URIContent) parentElement;
+        URIContent.Listing listing = listings.get(storage.getURI());
+        
+        if (listing == null) {
+          load(storage, () -> listings.put(storage.getURI(), storage.list()));
+          return new Object[] { new Loading() };
+        }
+        
+        return listing.entries(storage.getProject());
       }
     } catch (CoreException e) {
     	Activator.log(e.getMessage(), e);
@@ -133,6 +178,49 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
     return new Object[] {};
   }
 
+  /**
+   * Reads children in the background, and refreshes the parent once they are there.
+   */
+  private void load(Object parent, Runnable reader) {
+    if (!loading.add(parent)) {
+      return;
+    }
+    
+    Job job = new Job("Reading " + parent) {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        try {
+          reader.run();
+        }
+        finally {
+          loading.remove(parent);
+        }
+        refresh(parent);
+        return Status.OK_STATUS;
+      }
+    };
+    
+    job.setSystem(true);
+    job.schedule();
+  }
+  
+  private void refresh(Object element) {
+    synchronized (toRefresh) {
+      toRefresh.add(element);
+    }
+    refreshJob.schedule(REFRESH_DELAY);
+  }
+  
+  /**
+   * Shown while the children of a node are read.
+   */
+  public static class Loading {
+    @Override
+    public String toString() {
+      return "loading...";
+    }
+  }
+
   public static class SearchPath {
 	  private IProject project;
 
@@ -141,15 +229,22 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
 	  }
 	  
 	  public List<URIContent> getSearchPath() {
-		  RascalSearchPath resolver =  ProjectEvaluatorFactory.getInstance().getProjectSearchPath(project);
 		  List<URIContent> result = new LinkedList<>();
 		  
-		  for (ISourceLocation root : resolver.collect()) {
+		  for (ISourceLocation root : getSearchPathLocations()) {
 			  result.add(new URIContent(root, project, true));
 		  }
 
 		  return result;
 	  }
+	  
+	  /**
+	   * This may create an evaluator for the project, so better not call it on the UI thread.
+	   */
+	  public List<ISourceLocation> getSearchPathLocations() {
+		  RascalSearchPath resolver =  ProjectEvaluatorFactory.getInstance().getProjectSearchPath(project);
+		  return new ArrayList<>(resolver.collect());
+	  }
 
 	  public IProject getProject() {
 		  return project;
@@ -172,6 +267,7 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
 	  private final ISourceLocation uri;
 	  private final IProject project;
 	  private final boolean isRoot;
+	  private volatile Boolean isDirectory;
 	  
 	  public URIContent(ISourceLocation uri, IProject project, boolean isRoot) {
 		  this.uri = uri;
@@ -179,6 +275,36 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
 		  this.isRoot = isRoot;
 	  }
 	  
+	  private URIContent(ISourceLocation uri, IProject project, boolean isRoot, boolean isDirectory) {
+		  this(uri, project, isRoot);
+		  this.isDirectory = isDirectory;
+	  }
+	  
+	  /**
+	   * The entries of a folder, with for each entry whether it is a folder itself.
+	   */
+	  public static class Listing {
+		  private final ISourceLocation[] entries;
+		  private final boolean[] directories;
+		  
+		  private Listing(ISourceLocation[] entries) {
+			  this.entries = entries;
+			  this.directories = new boolean[entries.length];
+			  
+			  for (int i = 0; i < entries.length; i++) {
+				  directories[i] = URIResolverRegistry.getInstance().isDirectory(entries[i]);
+			  }
+		  }
+		  
+		  public URIContent[] entries(IProject project) {
+			  URIContent[] result = new URIContent[entries.length];
+			  for (int i = 0; i < entries.length; i++) {
+				  result[i] = new URIContent(entries[i], project, false, directories[i]);
+			  }
+			  return result;
+		  }
+	  }
+	  
 	  public boolean isRoot() {
 		  return isRoot;
 	  }
@@ -196,18 +322,43 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
 	  }
 	  
 	  public URIContent[] listEntries() {
+		  return list().entries(project);
+	  }
+	  
+	  /**
+	   * Reads the entries of this folder; an empty listing if it is not a folder.
+	   */
+	  public Listing list() {
 		  try {
-			  return Arrays.stream(URIResolverRegistry.getInstance().list(uri))
+			  if (!isDirectory()) {
+				  return new Listing(new ISourceLocation[0]);
+			  }
+			  
+			  return new Listing(Arrays.stream(URIResolverRegistry.getInstance().list(uri))
 			      .filter(loc -> loc.getPath() == null || !loc.getPath().endsWith(".class"))
-			      .map(loc -> new URIContent(loc, project, false))
-			      .toArray(i -> new URIContent[i]);			 
+			      .toArray(i -> new ISourceLocation[i]));			 
 		  } catch (IOException e) {
-			  return new URIContent[0];
+			  return new Listing(new ISourceLocation[0]);
 		  }
 	  }
 
 	  public boolean isDirectory() {
-		  return URIResolverRegistry.getInstance().isDirectory(uri);
+		  Boolean result = isDirectory;
+		  
+		  if (result == null) {
+			  result = URIResolverRegistry.getInstance().isDirectory(uri);
+			  isDirectory = result;
+		  }
+		  
+		  return result;
+	  }
+	  
+	  /**
+	   * @return whether this is known to be a folder, without asking the file system
+	   */
+	  public boolean mayBeDirectory() {
+		  Boolean result = isDirectory;
+		  return result == null || result;
 	  }
 	  
 	  public boolean exists() {
@@ -265,6 +416,18 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
 
   @Override
   public boolean hasChildren(Object element) {
+    if (element instanceof SearchPath) {
+      return true;
+    }
+    else if (element instanceof URIContent) {
+      URIContent content = (URIContent) element;
+      URIContent.Listing listing = listings.get(content.getURI());
+      return listing != null ? listing.entries.length > 0 : content.mayBeDirectory();
+    }
+    else if (element instanceof Loading) {
+      return false;
+    }
+    
     return getChildren(element).length > 0;
   }
 
@@ -280,14 +443,33 @@ public class NavigatorContentProvider implements ITreeContentProvider, IResource
 
   @Override
   public boolean visit(IResourceDelta delta) throws CoreException {
-	  final IResource source = delta.getResource();
-	  new UIJob("Refresh viewer") {  //$NON-NLS-1$
-		public IStatus runInUIThread(IProgressMonitor monitor) {
-		if (_viewer != null && !_viewer.getControl().isDisposed())
-			_viewer.refresh(source);
-		return Status.OK_STATUS;						
-		}
-	  }.schedule();
-	  return false;
+	  IResource source = delta.getResource();
+	  
+	  switch (source.getType()) {
+	  case IResource.ROOT:
+		  if (delta.getAffectedChildren(IResourceDelta.ADDED | IResourceDelta.REMOVED).length > 0) {
+			  refresh(source);
+			  return false;
+		  }
+		  return true;
+	  case IResource.PROJECT:
+		  IProject project = (IProject) source;
+		  invalidate(project, delta.findMember(new Path(RascalEclipseManifest.META_INF_RASCAL_MF)) != null);
+		  refresh(project);
+		  return false;
+	  default:
+		  return false;
+	  }
+  }
+  
+  /**
+   * Drops the listings of folders in the project, and its search path if its configuration changed. 
+   */
+  private void invalidate(IProject project, boolean searchPath) {
+	  listings.keySet().removeIf(loc -> "project".equals(loc.getScheme()) && project.getName().equals(loc.getAuthority()));
+	  
+	  if (searchPath) {
+		  searchPaths.remove(project);
+	  }
   }
 }
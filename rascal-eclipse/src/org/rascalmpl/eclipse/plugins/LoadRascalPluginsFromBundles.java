@@ -1,5 +1,9 @@
 package org.rascalmpl.eclipse.plugins;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.rascalmpl.eclipse.nature.ProjectEvaluatorFactory;
 
 import io.usethesource.impulse.language.ILanguageRegistrar;
@@ -7,6 +11,15 @@ import io.usethesource.impulse.language.ILanguageRegistrar;
 public class LoadRascalPluginsFromBundles implements ILanguageRegistrar {
   @Override
   public void registerLanguages() {
-    ProjectEvaluatorFactory.getInstance().loadInstalledRascalLibraryPlugins();
+    Job job = new Job("Loading Rascal library plugins") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        ProjectEvaluatorFactory.getInstance().loadInstalledRascalLibraryPlugins();
+        return Status.OK_STATUS;
+      }
+    };
+    
+    job.setSystem(true);
+    job.schedule();
   }
 }
@@ -14,6 +14,10 @@ package org.rascalmpl.eclipse.plugins;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.IRascalResources;
 import org.rascalmpl.eclipse.nature.ProjectEvaluatorFactory;
@@ -30,12 +34,41 @@ import io.usethesource.impulse.language.ILanguageRegistrar;
 
 public class LoadRascalPluginsFromProjects implements ILanguageRegistrar {
 	public void registerLanguages() {
-			registerTermLanguagePlugins();
+		Job job = new Job("Loading Rascal language plugins") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				registerTermLanguagePlugins();
+				return Status.OK_STATUS;
+			}
+		};
+		
+		job.setSystem(true);
+		job.schedule();
 	}
 	
 	public static void registerTermLanguagePlugins() {
+		PluginLoader<IProject> loader = new PluginLoader<>("language plugin");
+		RascalEclipseManifest mf = new RascalEclipseManifest();
+		int plugins = 0;
+		
 		for (final IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
-			registerTermLanguagePlugin(project);
+			if (isPlugin(project, mf)) {
+				loader.add(project.getName(), project, mf.getRequiredBundles(project));
+				plugins++;
+			}
+		}
+		
+		ProjectEvaluatorFactory.getInstance().expectEvaluators(plugins);
+		loader.run(LoadRascalPluginsFromProjects::registerTermLanguagePlugin);
+	}
+	
+	private static boolean isPlugin(IProject project, RascalEclipseManifest mf) {
+		try {
+			return project.isOpen() && project.hasNature(IRascalResources.ID_RASCAL_NATURE) && mf.hasManifest(project);
+		}
+		catch (CoreException e) {
+			Activator.getInstance().logException("could not register any term language plugins", e);
+			return false;
 		}
 	}
 
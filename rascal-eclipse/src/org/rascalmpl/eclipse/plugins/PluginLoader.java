@@ -0,0 +1,108 @@
+package org.rascalmpl.eclipse.plugins;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.rascalmpl.eclipse.Activator;
+
+/**
+ * Starts a set of plugins (projects or bundles) on a bounded number of threads. A plugin
+ * only waits for the plugins it requires in its RASCAL.MF, so every language becomes
+ * available as soon as its own plugin has run. The time each plugin took goes to the error log.
+ */
+public class PluginLoader<T> {
+    private static final int MAX_PARALLEL = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private final String kind;
+    private final Map<String, T> plugins = new LinkedHashMap<>();
+    private final Map<String, List<String>> requires = new HashMap<>();
+
+    /**
+     * @param kind what is loaded, for the log messages
+     */
+    public PluginLoader(String kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * @param required the names of the plugins this one requires; names of plugins which are not added are ignored
+     */
+    public void add(String name, T plugin, List<String> required) {
+        plugins.put(name, plugin);
+        requires.put(name, required != null ? required : Collections.<String>emptyList());
+    }
+
+    /**
+     * Runs start for all plugins and returns when they are all done. Errors are logged
+     * and do not stop the plugins which require the failing one.
+     */
+    public void run(Consumer<T> start) {
+        if (plugins.isEmpty()) {
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL, plugins.size()));
+        Map<String, CompletableFuture<Void>> started = new HashMap<>();
+
+        try {
+            for (String name : plugins.keySet()) {
+                schedule(name, start, pool, started, new HashSet<>());
+            }
+
+            CompletableFuture.allOf(started.values().toArray(new CompletableFuture<?>[0])).join();
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private CompletableFuture<Void> schedule(String name, Consumer<T> start, ExecutorService pool, Map<String, CompletableFuture<Void>> started, Set<String> visiting) {
+        CompletableFuture<Void> result = started.get(name);
+
+        if (result != null) {
+            return result;
+        }
+
+        visiting.add(name);
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+
+        for (String required : requires.get(name)) {
+            // a cycle in the requirements is simply cut
+            if (plugins.containsKey(required) && !visiting.contains(required)) {
+                dependencies.add(schedule(required, start, pool, started, visiting));
+            }
+        }
+
+        visiting.remove(name);
+
+        T plugin = plugins.get(name);
+        result = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                .thenRunAsync(() -> start(name, plugin, start), pool);
+        started.put(name, result);
+        return result;
+    }
+
+    private void start(String name, T plugin, Consumer<T> start) {
+        long begin = System.currentTimeMillis();
+
+        try {
+            start.accept(plugin);
+        }
+        catch (Throwable e) {
+            Activator.log("could not start " + kind + " " + name, e);
+        }
+        finally {
+            Activator.logInfo(kind + " " + name + " started in " + (System.currentTimeMillis() - begin) + "ms");
+        }
+    }
+}
@@ -2,18 +2,37 @@ package org.rascalmpl.eclipse.repl;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * The input side of the REPL pipe. Bytes are kept in a chain of fixed size segments,
+ * which the writers append to and the single reader (the REPL) consumes in bulk. 
+ * There is no boxing per byte, and a reader without data parks until a writer wakes it up.
+ * 
+ * Writes never block: a long paste into a busy REPL just adds segments.
+ */
 public class REPLPipedInputStream extends InputStream {
+  private static final int SEGMENT_SIZE = 8192;
 
-  private final ConcurrentLinkedQueue<Byte> queue;
+  private static final class Segment {
+    final byte[] data = new byte[SEGMENT_SIZE];
+    /** published by the writer, after the bytes are in place */
+    volatile int written = 0;
+    /** only touched by the reader */
+    int read = 0;
+    volatile Segment next = null;
+  }
+
+  /** only touched by the reader */
+  private Segment head;
+  /** only touched by writers, under the writeLock */
+  private Segment tail;
+  private final Object writeLock = new Object();
+  private volatile Thread waiting;
   private volatile boolean closed;
-  private final Semaphore newData = new Semaphore(0);
 
   public REPLPipedInputStream() {
-    this.queue = new ConcurrentLinkedQueue<Byte>();
+    this.head = this.tail = new Segment();
     this.closed = false;
   }
 
@@ -32,53 +51,128 @@ public class REPLPipedInputStream extends InputStream {
     } else if (len == 0) {
       return 0;
     }
+    
     // we have to at least read one (so block until we can)
-    int atLeastOne = read();
-    if (atLeastOne == -1) {
+    if (!awaitData()) {
       return -1;
     }
-    int index = off;
-    b[index++] = (byte) atLeastOne;
 
     // now consume the rest of the available bytes
-    Byte current;
-    while ((current = queue.poll()) != null && (index < off + len)) {
-      b[index++] = current;
+    int index = off;
+    int end = off + len;
+    while (index < end) {
+      Segment current = currentSegment();
+      if (current == null) {
+        break;
+      }
+      int n = Math.min(current.written - current.read, end - index);
+      System.arraycopy(current.data, current.read, b, index, n);
+      current.read += n;
+      index += n;
     }
     return index - off;
   }
 
   @Override
   public int read() throws IOException {
-    Byte result = null;
-    while ((result = queue.poll()) == null) {
-      try {
-        newData.tryAcquire(10, TimeUnit.MILLISECONDS);
-      }
-      catch (InterruptedException e) {
-        return -1;
+    if (!awaitData()) {
+      return -1;
+    }
+    Segment current = currentSegment();
+    return current.data[current.read++] & 0xFF;
+  }
+  
+  @Override
+  public int available() throws IOException {
+    Segment current = currentSegment();
+    return current == null ? 0 : current.written - current.read;
+  }
+
+  /**
+   * @return the segment with unread bytes, moving past segments that are used up, or null if there is nothing to read
+   */
+  private Segment currentSegment() {
+    Segment current = head;
+    while (current.read == current.written) {
+      Segment next = current.next;
+      if (current.read < SEGMENT_SIZE || next == null) {
+        return null;
       }
+      head = current = next;
+    }
+    return current;
+  }
+
+  /**
+   * Parks until there is data or the stream is closed.
+   * @return false if the stream was closed or the reader interrupted
+   */
+  private boolean awaitData() {
+    while (currentSegment() == null) {
       if (closed) {
-        return -1;
+        return false;
+      }
+      waiting = Thread.currentThread();
+      // check again, a writer may have added data before it could see us waiting
+      if (currentSegment() == null && !closed) {
+        LockSupport.park(this);
+      }
+      waiting = null;
+      if (Thread.interrupted()) {
+        return false;
       }
     }
-    return (result & 0xFF);
+    return true;
+  }
+
+  private void wakeReader() {
+    Thread reader = waiting;
+    if (reader != null) {
+      LockSupport.unpark(reader);
+    }
   }
 
   @Override
   public void close() throws IOException {
     closed = true;
+    wakeReader();
   }
 
   public void write(byte[] b, int off, int len) {
-    for (int i = off; i < off + len; i++) {
-      queue.add(b[i]); 
+    synchronized (writeLock) {
+      while (len > 0) {
+        Segment current = tail;
+        int w = current.written;
+        if (w == SEGMENT_SIZE) {
+          Segment next = new Segment();
+          current.next = next;
+          tail = current = next;
+          w = 0;
+        }
+        int n = Math.min(len, SEGMENT_SIZE - w);
+        System.arraycopy(b, off, current.data, w, n);
+        current.written = w + n;
+        off += n;
+        len -= n;
+      }
     }
-    newData.release();
+    wakeReader();
   }
+  
   public void write(byte b) {
-    queue.add(b); 
-    newData.release();
+    synchronized (writeLock) {
+      Segment current = tail;
+      int w = current.written;
+      if (w == SEGMENT_SIZE) {
+        Segment next = new Segment();
+        current.next = next;
+        tail = current = next;
+        w = 0;
+      }
+      current.data[w] = b;
+      current.written = w + 1;
+    }
+    wakeReader();
   }
 
 }
@@ -61,6 +61,7 @@ public class RascalTerminalConnector extends SizedTerminalConnector {
     private ModuleReloader reloader;
     private int terminalHeight = 24;
     private int terminalWidth = 80;
+    private volatile long lastCommandTime;
   
    
     @Override
@@ -217,6 +218,14 @@ public class RascalTerminalConnector extends SizedTerminalConnector {
     public int getWidth() {
         return terminalWidth;
     }
+    
+    /**
+     * @return how long, in nanoseconds, the last statement took from being entered until the REPL was ready 
+     *         for the next one, including reloading changed modules
+     */
+    public long getLastCommandTime() {
+        return lastCommandTime;
+    }
 
     protected BaseRascalREPL constructREPL(ITerminalControl control, REPLPipedInputStream stdIn, OutputStream stdInUI, Terminal tm) throws IOException, URISyntaxException {
         return new RascalInterpreterREPL(stdIn, control.getRemoteToTerminalOutputStream(), true, true, getHistoryFile(), tm) {
@@ -260,6 +269,7 @@ public class RascalTerminalConnector extends SizedTerminalConnector {
             @Override
             protected IRascalResult evalStatement(String statement, String lastLine)
                     throws InterruptedException {
+                long start = System.nanoTime();
                 try {
                     if (debug()) {
                         synchronized(eval) {
@@ -267,15 +277,19 @@ public class RascalTerminalConnector extends SizedTerminalConnector {
                         }
                     }
                     
-                    Job job = new Job("Reloading modules") {
-                        @Override
-                        protected IStatus run(IProgressMonitor monitor) {
-                            reloader.updateModules(monitor, warnings, Collections.emptySet());
-                            return Status.OK_STATUS;
-                        }
-                    };
-                    job.schedule();
-                    job.join();
+                    // the reloader listens for changed modules, so only when it has seen one the job is worth its latency;
+                    // a module that does not parse is reported once, not reloaded again for every statement
+                    if (reloader.isDirty()) {
+                        Job job = new Job("Reloading modules") {
+                            @Override
+                            protected IStatus run(IProgressMonitor monitor) {
+                                reloader.updateModules(monitor, warnings, Collections.emptySet());
+                                return Status.OK_STATUS;
+                            }
+                        };
+                        job.schedule();
+                        job.join();
+                    }
                  
                     return super.evalStatement(statement, lastLine);
                 }
@@ -285,6 +299,8 @@ public class RascalTerminalConnector extends SizedTerminalConnector {
                             eventTrigger.fireSuspendByClientRequestEvent();
                         }
                     }
+                    
+                    lastCommandTime = System.nanoTime() - start;
                 }
             }
             
@@ -22,6 +22,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.IRascalResources;
 import org.rascalmpl.eclipse.editor.MessagesToMarkers;
+import org.rascalmpl.eclipse.editor.ReconcilingMarkerCreator;
 import org.rascalmpl.eclipse.nature.RascalMonitor;
 import org.rascalmpl.eclipse.nature.WarningsToErrorLog;
 import org.rascalmpl.interpreter.IEvaluatorContext;
@@ -44,8 +45,6 @@ import org.rascalmpl.value.type.Type;
 import org.rascalmpl.value.type.TypeFactory;
 
 import io.usethesource.impulse.builder.BuilderBase;
-import io.usethesource.impulse.builder.MarkerCreator;
-import io.usethesource.impulse.builder.MarkerCreatorWithBatching;
 import io.usethesource.impulse.language.Language;
 import io.usethesource.impulse.model.ISourceProject;
 import io.usethesource.impulse.model.ModelFactory;
@@ -83,11 +82,12 @@ public class Builder extends BuilderBase {
 	protected void compile(IFile file, IProgressMonitor monitor) {
 		InputStream contents = null;
 		String input = null;
-		IMessageHandler handler = new MarkerCreator(file, MARKER_ID);
+		IMessageHandler handler = new ReconcilingMarkerCreator(file, MARKER_ID);
 		Language lang = registry.getLanguage(file.getFileExtension());
 		ISet builders = registry.getBuilders(lang);
 		IEvaluatorContext evalForErrors = null;
 		if (builders == null || builders.size() == 0) {
+			handler.endMessages();
 			return;
 		}
 		
@@ -133,12 +133,6 @@ public class Builder extends BuilderBase {
 			}
 			
 			messagesToMarkers.process(loc, messages.done(), handler);
-			handler.endMessages();
-			
-			// TODO: this MarkerCreatorWithBatching should just implement endMessages() correctly.
-			if (handler instanceof MarkerCreatorWithBatching) {
-				((MarkerCreatorWithBatching) handler).flush(monitor);
-			}
 		}
 		catch (ParseError pe){
 			int offset = pe.getOffset();
@@ -181,12 +175,14 @@ public class Builder extends BuilderBase {
 			}
 			else 
 				Activator.getInstance().logException("could not read file in builder: " + file, e);
-			return;
 		}
 		catch (Throwable e) {
 			Activator.getInstance().logException("exception in builder for: " + file, e);
 		}
 		finally {
+			// also when the build failed, otherwise the old markers of the file would stay
+			handler.endMessages();
+			
 			if (contents != null) {
 				try {
 					contents.close();
@@ -197,6 +193,11 @@ public class Builder extends BuilderBase {
 		}
 	}
 
+	@Override
+	protected void clearMarkersOn(IFile file) {
+		// compile reconciles the markers with the new messages, which keeps the ones which did not change
+	}
+
 	@Override
 	protected void collectDependencies(IFile file) {
 		// nothing for now
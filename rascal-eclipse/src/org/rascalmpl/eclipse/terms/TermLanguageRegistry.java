@@ -15,6 +15,7 @@ package org.rascalmpl.eclipse.terms;
 
 import static org.rascalmpl.eclipse.IRascalResources.ID_RASCAL_ECLIPSE_PLUGIN;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -39,12 +40,13 @@ import io.usethesource.impulse.language.Language;
 import io.usethesource.impulse.language.LanguageRegistry;
 
 public class TermLanguageRegistry {
-	private final Map<String, Language> languages = new HashMap<String,Language>();
-	private final Map<String, IEvaluatorContext> evals = new HashMap<String, IEvaluatorContext>();
-	private final Map<String, ICallableValue> parsers = new HashMap<String,ICallableValue>();
-	private final Map<String, ICallableValue> analyses = new HashMap<String,ICallableValue>();
-	private final Map<String, ICallableValue> outliners = new HashMap<String,ICallableValue>();
-	private final Map<String, ISet> contributions = new HashMap<String, ISet>();
+	// plugins register their languages concurrently at start up
+	private final Map<String, Language> languages = Collections.synchronizedMap(new HashMap<String, Language>());
+	private final Map<String, IEvaluatorContext> evals = Collections.synchronizedMap(new HashMap<String, IEvaluatorContext>());
+	private final Map<String, ICallableValue> parsers = Collections.synchronizedMap(new HashMap<String, ICallableValue>());
+	private final Map<String, ICallableValue> analyses = Collections.synchronizedMap(new HashMap<String, ICallableValue>());
+	private final Map<String, ICallableValue> outliners = Collections.synchronizedMap(new HashMap<String, ICallableValue>());
+	private final Map<String, ISet> contributions = Collections.synchronizedMap(new HashMap<String, ISet>());
 	private final Map<String, ISet> nonRascalContributions = new ConcurrentHashMap<String, ISet>();
 
 	static private class InstanceKeeper {
@@ -92,7 +94,9 @@ public class TermLanguageRegistry {
 		languages.put(extension, l);
 		evals.put(name, ctx);
 		parsers.put(name, parser);
-		LanguageRegistry.registerLanguage(l);
+		synchronized (LanguageRegistry.class) {
+			LanguageRegistry.registerLanguage(l);
+		}
 	}
 
 	public void registerAnnotator(String lang, ICallableValue function) {
@@ -26,7 +26,8 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.rascalmpl.eclipse.Activator;
 import org.rascalmpl.eclipse.editor.NodeLocator;
-import org.rascalmpl.eclipse.editor.TokenIterator;
+import org.rascalmpl.eclipse.editor.ParseScheduler;
+import org.rascalmpl.eclipse.editor.TokenStream;
 import org.rascalmpl.eclipse.nature.IWarningHandler;
 import org.rascalmpl.eclipse.nature.RascalMonitor;
 import org.rascalmpl.eclipse.nature.WarningsToMessageHandler;
@@ -61,6 +62,8 @@ public class TermParseController implements IParseController {
 	private Language language;
 	private IDocument document;
 	private ParseJob job;
+	private ParseScheduler scheduler;
+	private volatile TokenStream tokens;
 	private final static IValueFactory VF = ValueFactoryFactory.getValueFactory(); 
 	private final static AnnotatorExecutor executor = new AnnotatorExecutor();
 	
@@ -99,7 +102,15 @@ public class TermParseController implements IParseController {
 	}
 
 	public Iterator<Object> getTokenIterator(IRegion region) {
-		return new TokenIterator(true, parseTree);
+		IConstructor tree = parseTree;
+		TokenStream current = tokens;
+		
+		if (current == null || current.getTree() != tree) {
+			current = new TokenStream(true, tree);
+			tokens = current;
+		}
+		
+		return current.iterator(region);
 	}
 
 	@Override
@@ -122,6 +133,14 @@ public class TermParseController implements IParseController {
 		}
 
 		this.job = new ParseJob(language.getName() + " parser", location, handler);
+		this.scheduler = new ParseScheduler(job, job::initialize, () -> job.parseTree, (tree) -> this.parseTree = (IConstructor) tree);
+	}
+	
+	/**
+	 * @return the scheduler which coalesces parses of this editor, for its counters and delay
+	 */
+	public ParseScheduler getParseScheduler() {
+		return scheduler;
 	}
 	
 	public IDocument getDocument() {
@@ -162,6 +181,10 @@ public class TermParseController implements IParseController {
 			rm.startJob("Parsing Term", 105);
 			
 			try{
+				if (monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				
 				handler.clearMessages();
 				TypeFactory TF = TypeFactory.getInstance();
 				ICallableValue parser = getParser();
@@ -169,6 +192,13 @@ public class TermParseController implements IParseController {
 					synchronized (parser.getEval()) {
 						parseTree = (ITree) parser.call(rm, new Type[] {TF.stringType(), TF.sourceLocationType()}, new IValue[] { VF.string(input), loc}, null).getValue();
 					}
+					
+					if (monitor.isCanceled()) {
+						// newer text is waiting, do not spend time annotating an outdated tree
+						parseTree = null;
+						return Status.CANCEL_STATUS;
+					}
+					
 					ICallableValue annotator = getAnnotator();
 					if (parseTree != null && annotator != null) {
 						rm.event("annotating", 5);
@@ -224,17 +254,8 @@ public class TermParseController implements IParseController {
 		}
 	}
 	
-	public synchronized Object parse(String input, IProgressMonitor monitor){
-		parseTree = null;
-		try {
-			job.initialize(input);
-			job.schedule();
-			job.join();
-			parseTree = job.parseTree;
-			return parseTree;
-		} catch (InterruptedException e) {
-			Activator.getInstance().logException("parser interrupted", e);
-		}
-		return null;
+	public Object parse(String input, IProgressMonitor monitor){
+		// the current tree stays available to highlighters until a newer parse completes
+		return scheduler.parse(input, monitor);
 	}
 }
@@ -0,0 +1,153 @@
+package org.rascalmpl.eclipse.util;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.rascalmpl.eclipse.Activator;
+import org.rascalmpl.library.util.PathConfig;
+import org.rascalmpl.values.ValueFactoryFactory;
+
+/**
+ * Caches the {@link PathConfig} of every project, since computing one reads RASCAL.MF and
+ * walks the Java class path. An entry is dropped when the project's RASCAL.MF or .classpath
+ * changes, when its resolved Java class path or its set of referenced projects changes, or 
+ * when the project is closed or removed. Since a PathConfig includes the paths of referenced 
+ * projects, the projects which reference an invalidated project are invalidated as well.
+ */
+public class PathConfigCache implements IResourceChangeListener, IElementChangedListener {
+    private static final String CLASSPATH_FILE = ".classpath";
+    private final Map<IProject, PathConfig> configs = new ConcurrentHashMap<>();
+    private final ProjectConfig builder = new ProjectConfig(ValueFactoryFactory.getValueFactory());
+
+    private PathConfigCache() {
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+        JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
+    }
+
+    private static class InstanceHolder {
+        static PathConfigCache sInstance = new PathConfigCache();
+    }
+
+    public static PathConfigCache getInstance() {
+        return InstanceHolder.sInstance;
+    }
+
+    public PathConfig getPathConfig(IProject project) {
+        return configs.computeIfAbsent(project, builder::getPathConfig);
+    }
+
+    public void invalidate(IProject project) {
+        invalidate(project, new HashSet<>());
+    }
+
+    private void invalidate(IProject project, Set<IProject> done) {
+        if (!done.add(project)) {
+            // project references may be cyclic
+            return;
+        }
+
+        configs.remove(project);
+
+        // also when the project itself was not cached, the projects that reference it may be
+        if (project.isOpen()) {
+            for (IProject referencing : project.getReferencingProjects()) {
+                invalidate(referencing, done);
+            }
+        }
+    }
+
+    public void invalidateEverything() {
+        configs.clear();
+    }
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+        if (configs.isEmpty()) {
+            return;
+        }
+
+        if (event.getResource() instanceof IProject) {
+            // closing or deleting
+            invalidate((IProject) event.getResource());
+            return;
+        }
+
+        IResourceDelta delta = event.getDelta();
+        if (delta == null) {
+            return;
+        }
+
+        try {
+            delta.accept(d -> {
+                IResource resource = d.getResource();
+
+                switch (resource.getType()) {
+                case IResource.ROOT:
+                    return true;
+                case IResource.PROJECT:
+                    IProject project = (IProject) resource;
+
+                    if (d.getKind() != IResourceDelta.CHANGED || (d.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0) {
+                        // opened, closed, or its referenced projects may have changed
+                        invalidate(project);
+                        return false;
+                    }
+
+                    invalidateIfConfigChanged(project, d);
+                    return false;
+                default:
+                    return false;
+                }
+            });
+        }
+        catch (CoreException e) {
+            Activator.log("could not process changes to project configurations", e);
+        }
+    }
+
+    @Override
+    public void elementChanged(ElementChangedEvent event) {
+        if (!configs.isEmpty()) {
+            visit(event.getDelta());
+        }
+    }
+
+    private void visit(IJavaElementDelta delta) {
+        IJavaElement elem = delta.getElement();
+
+        if (elem.getElementType() == IJavaElement.JAVA_MODEL) {
+            for (IJavaElementDelta child : delta.getAffectedChildren()) {
+                visit(child);
+            }
+        }
+        else if (elem.getElementType() == IJavaElement.JAVA_PROJECT) {
+            // for example a changed classpath container, which does not touch .classpath
+            if ((delta.getFlags() & (IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_CLASSPATH_CHANGED)) != 0) {
+                invalidate(((IJavaProject) elem).getProject());
+            }
+        }
+    }
+
+    private void invalidateIfConfigChanged(IProject project, IResourceDelta projectDelta) {
+        if (projectDelta.findMember(new Path(RascalEclipseManifest.META_INF_RASCAL_MF)) != null
+                || projectDelta.findMember(new Path(CLASSPATH_FILE)) != null) {
+            invalidate(project);
+        }
+    }
+}
@@ -4,8 +4,10 @@ package org.rascalmpl.eclipse.util;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -29,7 +31,8 @@ import org.rascalmpl.value.IValueFactory;
 
 /**
  * ProjectConfig is a builder to produce a proper Rascal PathConfig for an Eclipse project.
- * This is not yet complete.
+ * This is not yet complete. Computing a PathConfig is not cheap, so clients should
+ * use {@link PathConfigCache} instead.
  */
 public class ProjectConfig {
     public static final String BIN_FOLDER = "bin";
@@ -102,8 +105,9 @@ public class ProjectConfig {
         
         // Here we find out what the compiler class path must be for compiling generated Rascal parsers
         // and we construct a class path for the JavaBridge to load java builtins
-        List<ISourceLocation> javaCompilerPath = new ArrayList<>();
-        List<ISourceLocation> classloaders = new ArrayList<>();
+        // insertion ordered sets, because the class path of referenced projects overlaps a lot
+        Set<ISourceLocation> javaCompilerPath = new LinkedHashSet<>();
+        Set<ISourceLocation> classloaders = new LinkedHashSet<>();
       
         try {
             Bundle rascalBundle = Activator.getInstance().getBundle();
@@ -114,7 +118,7 @@ public class ProjectConfig {
                 classloaders.add(vf.sourceLocation(entry.toURI()));
             }
            
-            collectPathForProject(project, javaCompilerPath, classloaders);
+            collectPathForProject(project, javaCompilerPath, classloaders, new HashSet<>());
             
         } catch (URISyntaxException | IOException | CoreException e) {
             Activator.log("error while constructing compiler path", e);
@@ -135,7 +139,12 @@ public class ProjectConfig {
         return "rascal".equals(project.getName());
     }
 
-    private void collectPathForProject(IProject project,  List<ISourceLocation> compilerPath, List<ISourceLocation> classloaders) throws URISyntaxException, JavaModelException, CoreException {
+    private void collectPathForProject(IProject project,  Set<ISourceLocation> compilerPath, Set<ISourceLocation> classloaders, Set<IProject> visited) throws URISyntaxException, JavaModelException, CoreException {
+        if (project == null || !visited.add(project)) {
+            // referenced projects are often shared by several others, we need them only once
+            return;
+        }
+        
         // this even works if the project is not a Java project,
         // we load bundle dependencies and local jars directly from RASCAL.MF
         if (project.hasNature(IRascalResources.ID_RASCAL_NATURE)) {
@@ -144,21 +153,14 @@ public class ProjectConfig {
             List<String> requiredBundles = mf.getRequiredBundles(project);
             if (requiredBundles != null) {
                 for (String lib : requiredBundles) {
-                    ISourceLocation loc = vf.sourceLocation("plugin", Platform.getBundle(lib).getSymbolicName(), "");
-                    
-                    if (!classloaders.contains(loc)) {
-                        classloaders.add(loc);
-                    }
+                    classloaders.add(vf.sourceLocation("plugin", Platform.getBundle(lib).getSymbolicName(), ""));
                 }
             }
 
             List<String> requiredLibraries = mf.getRequiredLibraries(project);
             if (requiredLibraries != null) {
                 for (String lib : requiredLibraries) {
-                    ISourceLocation loc = vf.sourceLocation(project.getFile(lib).getFullPath().makeAbsolute().toFile().getAbsolutePath());
-                    if (!classloaders.contains(loc)) {
-                        classloaders.add(loc);
-                    }
+                    classloaders.add(vf.sourceLocation(project.getFile(lib).getFullPath().makeAbsolute().toFile().getAbsolutePath()));
                 }
             }
         }
@@ -192,27 +194,17 @@ public class ProjectConfig {
                         if (entry.getPath().segment(0).equals(project.getName())) {
                             String file = project.getLocation() + "/" + entry.getPath().removeFirstSegments(1).toString();
                             ISourceLocation loc = vf.sourceLocation("file", "", file);
-
-                            if (!classloaders.contains(loc)) {
-                                classloaders.add(loc);
-                            }
-                            
-                            if (!compilerPath.contains(loc)) {
-                                compilerPath.add(loc);
-                            }
+                            classloaders.add(loc);
+                            compilerPath.add(loc);
                         }
                         else {
                             ISourceLocation url = vf.sourceLocation("file", "", entry.getPath().toString());
-                            if (!classloaders.contains(url)) {
-                                classloaders.add(url);
-                            }
-                            if (!compilerPath.contains(url)) {
-                                compilerPath.add(url);
-                            }
+                            classloaders.add(url);
+                            compilerPath.add(url);
                         }
                         break;
                     case IClasspathEntry.CPE_PROJECT:
-                        collectPathForProject((IProject) project.getWorkspace().getRoot().findMember(entry.getPath()), compilerPath, classloaders);
+                        collectPathForProject((IProject) project.getWorkspace().getRoot().findMember(entry.getPath()), compilerPath, classloaders, visited);
                         break;
                 }
             }